@@ -1,4 +1,5 @@
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 import ucar.multiarray.*;
@@ -25,15 +26,38 @@ import edu.wisc.ssec.mcidas.*;
  * @author Tommy Jasmin, SSEC
  */
 
-public class AreaToNetCDF extends Frame {
+public class AreaToNetCDF {
 
 private static final String VERSION = "1.7";
 
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].startsWith("-BATCH")) {
+      System.exit(BatchConverter.run(args));
+    }
+    if (args.length > 0 && args[0].startsWith("-WATCH")) {
+      System.exit(IngestDaemon.run(args));
+    }
+    if (args.length > 0 && args[0].startsWith("-SERVE")) {
+      System.exit(ConversionServer.run(args));
+    }
     AreaToNetCDF anc = new AreaToNetCDF(args);
     System.exit(0);
   }
 
+  // set once the output file has been written and closed
+  private boolean converted = false;
+
+  /**
+   *
+   * return true if the conversion finished and the output file
+   * was written
+   *
+   */
+
+  public boolean isConverted() {
+    return converted;
+  }
+
   public AreaToNetCDF(String[] args) {
 
   ScienceImage si = null;
@@ -53,6 +77,28 @@ private static final String VERSION = "1.7";
   float cLat = Float.NaN;
   float cLon = Float.NaN;
   boolean useCF = false;
+  int threads = 1;
+  boolean partition = false;
+  float navInterpKm = 0.0f;
+  String navCacheDir = null;
+  long navCacheMB = 2048;
+  boolean packFlag = false;
+  boolean gridMapFlag = false;
+  String linesOpt = null;
+  String elemsOpt = null;
+  String boxOpt = null;
+  String reduceOpt = null;
+  String bandsOpt = null;
+  int readAheadLines = 0;
+  int bufferKB = 0;
+  boolean reduceAverage = true;
+  NavCache.Entry cacheIn = null;
+  NavCache.Entry cacheOut = null;
+  SlabWriter sw = null;
+  String statsFile = null;
+  boolean stageTimes = false;
+  ConversionStats stats = null;
+  ConversionMonitor.Conversion monitor = null;
 
   // get input and output file name
 
@@ -63,6 +109,18 @@ private static final String VERSION = "1.7";
     System.out.println(" where <areafile> can be either a McIDAS area " +
       "file name, or an ADDE protocol URL");
     System.out.println("       <netcdf> will default to 'areafile.nc'");
+    System.out.println("   or: jre -cp PATH/AreaToNetCDF.jar AreaToNetCDF" +
+      " -BATCH<listfile|glob> [-WORKERS<n>] <args>");
+    System.out.println("       to convert many files in one run; each line of");
+    System.out.println("       <listfile> is '<areafile> [<netcdf>]', a glob such as");
+    System.out.println("       'dir/*.area' converts every match to 'areafile.nc'");
+    System.out.println("   or: jre -cp PATH/AreaToNetCDF.jar AreaToNetCDF" +
+      " -WATCH<dir>[,<dir>...] [-OUTDIR<dir>] [-WORKERS<n>] [-SETTLE<ms>] <args>");
+    System.out.println("       to convert files as they arrive in the spool dirs;");
+    System.out.println("       inputs are moved to dir/done or dir/failed");
+    System.out.println("   or: jre -cp PATH/AreaToNetCDF.jar AreaToNetCDF" +
+      " -SERVE<port> [-MAXJOBS<n>] [-MAXUPLOAD<MB>]");
+    System.out.println("       to convert on request at http://127.0.0.1:<port>/convert");
     System.out.println("       <args> can be one of the following:");
     System.out.println("              -AWIPS: generate AWIPS format file");
     System.out.println("              -NOLL : no lat/lon in output file");
@@ -76,17 +134,43 @@ private static final String VERSION = "1.7";
     System.out.println("                  TEMP: temperature values");
     System.out.println("                  BRIT: brightness values");
     System.out.println("                  ALB:  albedo");
-    System.out.println("                  RAW:  raw sensor values");
+    System.out.println("                  RAW:  raw sensor values, stored at the source data width");
     System.out.println("              -CF : use CF-compliant attributes");
+    System.out.println("              -THREADS<n> : calibrate and navigate with n threads");
+    System.out.println("              -PARTITION : local files only; split the image into line");
+    System.out.println("                  ranges that the threads convert and write independently");
+    System.out.println("                  (all cores unless -THREADS<n> is given)");
+    System.out.println("              -NAVINTERP<km> : interpolate lat/lon from a grid,");
+    System.out.println("                  at most km off from exact navigation");
+    System.out.println("              -PACK : store calibrated values and lat/lon as shorts");
+    System.out.println("                  with CF scale_factor/add_offset");
+    System.out.println("              -NAVCACHE<dir>[,<MB>] : keep lat/lon grids in dir and");
+    System.out.println("                  reuse them for images of the same sector");
+    System.out.println("              -LINES<first>,<last> : convert only these image lines");
+    System.out.println("              -ELEMS<first>,<last> : convert only these image elements");
+    System.out.println("                  (0 based, inclusive)");
+    System.out.println("              -BBOX<lat1>,<lon1>,<lat2>,<lon2> : convert only the part of");
+    System.out.println("                  the image covering this box; lon1 is the west edge");
+    System.out.println("              -BANDS<c1>[,<c2>...] : convert only these channels");
+    System.out.println("              -REDUCE<n>[,<m>] : average each n lines by m elements block");
+    System.out.println("                  of counts into one pixel (m defaults to n)");
+    System.out.println("              -SAMPLE<n>[,<m>] : keep every n-th line and m-th element");
+    System.out.println("              -READAHEAD[<lines>[,<KB>]] : read lines on a background");
+    System.out.println("                  thread, up to <lines> (64) ahead, through a <KB> (64)");
+    System.out.println("                  input buffer");
+    System.out.println("              -STATS[<file>] : write per stage times, bytes and");
+    System.out.println("                  allocations as JSON to <file> (<netcdf>.stats.json)");
+    System.out.println("              -STAGES : time the stages for the JMX conversion monitor");
+    System.out.println("                  (AreaToNetCDF:type=Conversion), without a report");
+    System.out.println("              -GRIDMAP : for Lambert conformal, Mercator and polar");
+    System.out.println("                  stereographic images, write a CF grid_mapping and");
+    System.out.println("                  x/y coordinates instead of lat/lon");
     return;
   }
 
   fInName = args[0];
   if (args.length > 1) {
-    if ((args[1].indexOf("-NOLL") < 0) && 
-        (args[1].indexOf("-C") < 0) &&
-        (args[1].indexOf("-Q") < 0) &&
-        (args[1].indexOf("-AWIPS") < 0)) {
+    if (!args[1].startsWith("-")) {
       fOutName = args[1];
       if (fOutName.indexOf(".nc") < 0) {
         fOutName = fOutName + ".nc";
@@ -126,6 +210,97 @@ private static final String VERSION = "1.7";
       isQuiet = true;
     }
 
+    if (args[i].indexOf("-NAVINTERP") >= 0) {
+      try {
+        navInterpKm = Float.parseFloat(args[i].substring(10));
+      } catch (NumberFormatException e) {
+        navInterpKm = 1.0f;
+      }
+    }
+
+    if (args[i].indexOf("-PACK") >= 0) {
+      packFlag = true;
+    }
+
+    if (args[i].indexOf("-GRIDMAP") >= 0) {
+      gridMapFlag = true;
+    }
+
+    if (args[i].indexOf("-LINES") >= 0) {
+      linesOpt = args[i].substring(6);
+    }
+
+    if (args[i].indexOf("-ELEMS") >= 0) {
+      elemsOpt = args[i].substring(6);
+    }
+
+    if (args[i].indexOf("-BBOX") >= 0) {
+      boxOpt = args[i].substring(5);
+    }
+
+    if (args[i].indexOf("-READAHEAD") >= 0) {
+      String [] r = args[i].substring(10).split(",");
+      readAheadLines = 64;
+      bufferKB = 64;
+      try {
+        if (r[0].length() > 0) {
+          readAheadLines = Integer.parseInt(r[0]);
+        }
+        if (r.length > 1) {
+          bufferKB = Integer.parseInt(r[1]);
+        }
+      } catch (NumberFormatException e) {
+        // keep the defaults
+      }
+    }
+
+    if (args[i].indexOf("-BANDS") >= 0) {
+      bandsOpt = args[i].substring(6);
+    }
+
+    if (args[i].indexOf("-STATS") >= 0) {
+      statsFile = args[i].substring(6);
+    }
+
+    if (args[i].indexOf("-STAGES") >= 0) {
+      stageTimes = true;
+    }
+
+    if (args[i].indexOf("-REDUCE") >= 0) {
+      reduceOpt = args[i].substring(7);
+      reduceAverage = true;
+    }
+
+    if (args[i].indexOf("-SAMPLE") >= 0) {
+      reduceOpt = args[i].substring(7);
+      reduceAverage = false;
+    }
+
+    if (args[i].indexOf("-NAVCACHE") >= 0) {
+      navCacheDir = args[i].substring(9);
+      int comma = navCacheDir.lastIndexOf(',');
+      if (comma >= 0) {
+        try {
+          navCacheMB = Long.parseLong(navCacheDir.substring(comma + 1));
+        } catch (NumberFormatException e) {
+          // keep the default size
+        }
+        navCacheDir = navCacheDir.substring(0, comma);
+      }
+    }
+
+    if (args[i].indexOf("-THREADS") >= 0) {
+      try {
+        threads = Integer.parseInt(args[i].substring(8));
+      } catch (NumberFormatException e) {
+        threads = Runtime.getRuntime().availableProcessors();
+      }
+    }
+
+    if (args[i].indexOf("-PARTITION") >= 0) {
+      partition = true;
+    }
+
     if (args[i].indexOf("-CRAW") >= 0) {
       calTypeOut = Calibrator.CAL_RAW;
     }
@@ -148,56 +323,197 @@ private static final String VERSION = "1.7";
 
   }
 
+  // RAW output keeps the source data width unless it has to go
+  // through the AWIPS/GIF byte path
+  boolean rawNative = (calTypeOut == Calibrator.CAL_RAW) && (awipsFlag == 0);
+
   // some status info.  print filename only if not an image URL
   if (fInName.indexOf("image") < 0) {
     System.out.println("input filename: " + fInName);
   }
   System.out.println("output filename: " + fOutName);
 
-  // create the science image object
-  try {
-    si = new ScienceImage(fInName);
-    ad = si.getAD();
-  } catch (IOException e) {
-    System.out.println("Error creating ScienceImage " + e);
-    return;
+  // stage timing, if -STATS or a flight recording wants it
+  if (statsFile != null && statsFile.length() == 0) {
+    statsFile = fOutName + ".stats.json";
   }
+  stats = ConversionStats.create(statsFile != null || stageTimes, fInName);
+  monitor = ConversionMonitor.begin(fInName, fOutName, stats);
 
-  // only certain data sources are currently supported for navigation
-  // current: GVAR only - implies that the line/element arrays 
-  // must be ordered [element][line] for conversion
-  int sid = ad.getSensorId();
-  if ( ((sid < 70) || (sid > 86)) && ((sid < 180) || (sid > 187)) ){
-    System.out.println("####  sid = "+sid+" ... no navigation available");
-    navFlag = 0;
-  }
+  SensorData sd = null;
+  try {
 
-  // set up a status message, used later
-  if (navFlag != 0) {
-    statusMsg = "Fetching, calibrating, navigating, storing data ";
-  } else {
-    statusMsg = "Fetching, calibrating, storing data ";
-  }
+    // create the science image object
+    try {
+      if (stats != null) {
+        stats.start();
+      }
+      if (bufferKB > 0) {
+        si = new ScienceImage(fInName, bufferKB * 1024);
+      } else {
+        si = new ScienceImage(fInName);
+      }
+      ad = si.getAD();
+      if (stats != null) {
+        stats.stop(ConversionStats.PARSE, -1, 0, 0L);
+      }
+    } catch (IOException e) {
+      System.out.println("Error creating ScienceImage " + e);
+      return;
+    }
 
-  // get objects we'll work with below
-  SensorData sd = si.getSD();
-  Calibrator c = si.getC();
-  Navigator  n = si.getN();
+    // only certain data sources are currently supported for navigation
+    // current: GVAR only - implies that the line/element arrays 
+    // must be ordered [element][line] for conversion
+    int sid = ad.getSensorId();
+    if ( ((sid < 70) || (sid > 86)) && ((sid < 180) || (sid > 187)) ){
+      System.out.println("####  sid = "+sid+" ... no navigation available");
+      navFlag = 0;
+    }
 
-  // we'll use these throughout the conversion
-  int sl = ad.getStartLine();
-  int se = ad.getStartElem();
+    // set up a status message, used later
+    if (navFlag != 0) {
+      statusMsg = "Fetching, calibrating, navigating, storing data ";
+    } else {
+      statusMsg = "Fetching, calibrating, storing data ";
+    }
 
-  try {
+    // get objects we'll work with below
+    sd = si.getSD();
+    Calibrator c = si.getC();
+    Navigator  n = si.getN();
+
+    // the part of the image to convert; everything below works on
+    // just this window
+    ImageWindow win = new ImageWindow(ad);
+    try {
+      boolean inImage = true;
+      if (linesOpt != null) {
+        String [] r = linesOpt.split(",");
+        inImage &= win.setLines(Integer.parseInt(r[0]), Integer.parseInt(r[1]));
+      }
+      if (elemsOpt != null) {
+        String [] r = elemsOpt.split(",");
+        inImage &= win.setElems(Integer.parseInt(r[0]), Integer.parseInt(r[1]));
+      }
+      if (boxOpt != null && inImage) {
+        if (n == null) {
+          System.out.println("no navigation for this image, can't use -BBOX");
+          return;
+        }
+        String [] b = boxOpt.split(",");
+        inImage = win.setBox(n, Float.parseFloat(b[0]), Float.parseFloat(b[1]),
+          Float.parseFloat(b[2]), Float.parseFloat(b[3]));
+      }
+      if (!inImage) {
+        System.out.println("window is outside the image, nothing to convert");
+        return;
+      }
+      if (bandsOpt != null) {
+        String [] b = bandsOpt.split(",");
+        int [] channels = new int[b.length];
+        for (int i = 0; i < b.length; i++) {
+          channels[i] = Integer.parseInt(b[i].trim());
+        }
+        if (!win.setBands(channels)) {
+          System.out.println("channels " + bandsOpt + " not all in the image");
+          return;
+        }
+      }
+      if (reduceOpt != null) {
+        String [] r = reduceOpt.split(",");
+        int lineStep = Integer.parseInt(r[0]);
+        int elemStep = (r.length > 1) ? Integer.parseInt(r[1]) : lineStep;
+        win.setReduce(lineStep, elemStep, reduceAverage);
+      }
+    } catch (RuntimeException e) {
+      System.out.println("bad -LINES, -ELEMS, -BBOX, -BANDS, -REDUCE or -SAMPLE option: " + e);
+      return;
+    }
+    if (!win.isWholeImage()) {
+      System.out.println("converting " + win);
+    }
+    sd.setWindow(win);
+    sd.setReadAhead(readAheadLines);
+
+    // we'll use these throughout the conversion; area coordinates of
+    // the window's upper left corner
+    int sl = ad.getStartLine() + win.getFirstLine() * ad.getLineRes();
+    int se = ad.getStartElem() + win.getFirstElem() * ad.getElemRes();
+
+    // resolution of the output pixels, area lines/elements per pixel
+    int lineRes = ad.getLineRes() * win.getLineStep();
+    int elemRes = ad.getElemRes() * win.getElemStep();
+
+    // figure out exactly which bands are present
+    int bandMap = ad.getBandMap();
+    int bandIdx = 0;
+    int bandArr[] = new int[ad.getNumBands()];
+    for (int i = 0; i < 32; i++) {
+      if (((bandMap >> i) & 0x0001) > 0) {
+        bandArr[bandIdx] = i + 1;
+        System.out.println("data present from channel: " + (i+1));
+        bandIdx++;
+      }
+    }
+
+    // only the channels being converted from here on
+    bandArr = win.getBandNumbers();
+
+    // set cal type if we have a valid calibrator
+    c.setCalType(ad.getCalType());
+
+    // lookup tables for every band, so the pixel loop doesn't go
+    // through the calibrator math
+    CalibrationTable ct = null;
+    if (!rawNative) {
+      ct = new CalibrationTable(c, si.getCalBlock(), ad, bandArr, calTypeOut);
+    }
+
+    // packed image: the range comes from the tables, so every count
+    // the sensor can produce packs without clipping
+    Packing imagePack = null;
+    boolean packImage = packFlag && ct != null && awipsFlag == 0 &&
+      calTypeOut != Calibrator.CAL_BRIT;
+    if (packImage) {
+      float [] range = ct.range();
+      if (range != null) {
+        imagePack = new Packing(range[0], range[1]);
+        ct.setPacking(imagePack);
+      } else {
+        System.out.println("image not packed: 4 byte data has no tables");
+        packImage = false;
+      }
+    }
+
+    // regular projections can be described by 1-D x/y coordinates
+    // and a grid mapping, so no pixel needs navigating
+    GridMapping gm = null;
+    if (gridMapFlag && navFlag != 0 &&
+        ((n instanceof NavigatorLambertConformal) ||
+         (n instanceof NavigatorMercator) ||
+         (n instanceof NavigatorPolarStereographic))) {
+      gm = GridMapping.make(n, win);
+      if (gm != null) {
+        System.out.println("grid mapping within " +
+          (float) gm.getMaxErrorKm() + " km of navigation, no lat/lon written");
+        navFlag = 0;
+      } else {
+        System.out.println("grid mapping doesn't match navigation, " +
+          "writing lat/lon");
+      }
+    }
+
+    boolean packLatLon = packFlag && navFlag != 0;
 
     Schema schema = new Schema();
 
     // set up dimensions
-    Dimension y = new Dimension("y", ad.getNumLines());
-    Dimension x = new Dimension("x", ad.getNumElements());
-    Dimension lines = new Dimension("lines", ad.getNumLines());
-    Dimension elements = new Dimension("elements", ad.getNumElements());
-    Dimension numbands = new Dimension("numbands", ad.getNumBands());
+    Dimension y = new Dimension("y", win.getNumLines());
+    Dimension x = new Dimension("x", win.getNumElems());
+    Dimension lines = new Dimension("lines", win.getNumLines());
+    Dimension elements = new Dimension("elements", win.getNumElems());
+    Dimension numbands = new Dimension("numbands", win.getNumBands());
     Dimension sidLength = new Dimension("stringlength", 128);
 
     // global attributes
@@ -250,11 +566,20 @@ private static final String VERSION = "1.7";
 
       double tmpLatLon [][] = new double[2][1];
       double tmpLinEle [][] = new double[2][1];
+
+      // area coordinates of the first output pixel; -REDUCE averaging
+      // puts each pixel at the center of its block, as the lats/lons
+      double cl = sl;
+      double ce = se;
+      if (win.isAveraged()) {
+        cl += (win.getLineStep() - 1) / 2.0d * ad.getLineRes();
+        ce += (win.getElemStep() - 1) / 2.0d * ad.getElemRes();
+      }
       
       // compute lat/lon at upper left corner
 
-      tmpLinEle[0][0] = sl;
-      tmpLinEle[1][0] = se;
+      tmpLinEle[0][0] = cl;
+      tmpLinEle[1][0] = ce;
       tmpLatLon = n.toLatLon(tmpLinEle);
       schema.putAttribute (
         new Attribute("lat00", (float) tmpLatLon[0][0])
@@ -264,8 +589,8 @@ private static final String VERSION = "1.7";
       );
 
       // compute lat/lon at lower right corner
-      tmpLinEle[0][0] = sl + (ad.getNumLines() - 1) * ad.getLineRes();
-      tmpLinEle[1][0] = se + (ad.getNumElements() - 1) * ad.getElemRes();;
+      tmpLinEle[0][0] = cl + (win.getNumLines() - 1) * lineRes;
+      tmpLinEle[1][0] = ce + (win.getNumElems() - 1) * elemRes;;
       tmpLatLon = n.toLatLon(tmpLinEle);
       schema.putAttribute (
         new Attribute("latNxNy", (float) tmpLatLon[0][0])
@@ -275,8 +600,8 @@ private static final String VERSION = "1.7";
       );
 
       // compute lat/lon at center point
-      tmpLinEle[0][0] = sl + ((ad.getNumLines() / 2) - 1) * ad.getLineRes();
-      tmpLinEle[1][0] = se + ((ad.getNumElements() / 2) - 1) * ad.getElemRes();;
+      tmpLinEle[0][0] = cl + ((win.getNumLines() / 2) - 1) * lineRes;
+      tmpLinEle[1][0] = ce + ((win.getNumElems() / 2) - 1) * elemRes;;
       tmpLatLon = n.toLatLon(tmpLinEle);
       schema.putAttribute (
         new Attribute("latDxDy", (float) tmpLatLon[0][0])
@@ -289,27 +614,29 @@ private static final String VERSION = "1.7";
       lon1 = (float) tmpLatLon[1][0];
 
       // compute lat/lon one line down from center point
-      tmpLinEle[0][0] = sl + 1 + ((ad.getNumLines() / 2) - 1) * ad.getLineRes();
-      tmpLinEle[1][0] = se + ((ad.getNumElements() / 2) - 1) * ad.getElemRes();;
+      tmpLinEle[0][0] = cl + 1 + ((win.getNumLines() / 2) - 1) * lineRes;
+      tmpLinEle[1][0] = ce + ((win.getNumElems() / 2) - 1) * elemRes;;
       tmpLatLon = n.toLatLon(tmpLinEle);
       // store these values for distance 
       lat2 = (float) tmpLatLon[0][0];
       lon2 = (float) tmpLatLon[1][0];
 
       // compute y resolution at center
-      yRes = ConversionUtility.LatLonToDistance(lat1, lon1, lat2, lon2);
+      yRes = win.getLineStep() *
+        ConversionUtility.LatLonToDistance(lat1, lon1, lat2, lon2);
 
       // compute lat/lon one element over from center point
-      tmpLinEle[0][0] = sl + ((ad.getNumLines() / 2) - 1) * ad.getLineRes();
-      tmpLinEle[1][0] = se + 1 + 
-        ((ad.getNumElements() / 2) - 1) * ad.getElemRes();;
+      tmpLinEle[0][0] = cl + ((win.getNumLines() / 2) - 1) * lineRes;
+      tmpLinEle[1][0] = ce + 1 + 
+        ((win.getNumElems() / 2) - 1) * elemRes;;
       tmpLatLon = n.toLatLon(tmpLinEle);
       // store these values for distance 
       lat2 = (float) tmpLatLon[0][0];
       lon2 = (float) tmpLatLon[1][0];
 
       // compute x resolution at center
-      xRes = ConversionUtility.LatLonToDistance(lat1, lon1, lat2, lon2);
+      xRes = win.getElemStep() *
+        ConversionUtility.LatLonToDistance(lat1, lon1, lat2, lon2);
 
       // store the resolution attributes
       schema.putAttribute (
@@ -500,8 +827,8 @@ private static final String VERSION = "1.7";
     // the image data
     Dimension[] dataDim = new Dimension[3];
     dataDim[0] = numbands;
-    dataDim[1] = lines;
-    dataDim[2] = elements;
+    dataDim[1] = (gm != null) ? y : lines;
+    dataDim[2] = (gm != null) ? x : elements;
 
     // use this one for -AWIPS option
     Dimension[] awipsDim = new Dimension[2];
@@ -513,7 +840,9 @@ private static final String VERSION = "1.7";
     llDim[0] = lines;
     llDim[1] = elements;
 
-    // data type depends on output calibration type
+    // data type depends on output calibration type; raw values are
+    // stored at the width they had in the area file
+    int dw = ad.getDataWidth();
     ProtoVariable image;
     if (calTypeOut == Calibrator.CAL_BRIT) {
       if (awipsFlag == 1) {
@@ -521,10 +850,24 @@ private static final String VERSION = "1.7";
       } else {
         image = new ProtoVariable("image", Byte.TYPE, dataDim);
       }
+    } else if (rawNative) {
+      if (dw == 1) {
+        image = new ProtoVariable("image", Byte.TYPE, dataDim);
+      } else if (dw == 4) {
+        image = new ProtoVariable("image", Integer.TYPE, dataDim);
+      } else {
+        image = new ProtoVariable("image", Short.TYPE, dataDim);
+      }
+    } else if (packImage) {
+      image = new ProtoVariable("image", Short.TYPE, dataDim);
+      imagePack.putAttributes(image);
     } else {
       image = new ProtoVariable("image", Float.TYPE, dataDim);
     }
     schema.put(image);
+    if (gm != null) {
+      image.putAttribute(new Attribute("grid_mapping", GridMapping.NAME));
+    }
     // data attributes depend on cal type
     switch (calTypeOut) {
       case Calibrator.CAL_BRIT:
@@ -553,6 +896,21 @@ private static final String VERSION = "1.7";
           new Attribute("units", "%")
         );
         break;
+      case Calibrator.CAL_RAW:
+        image.putAttribute (
+          new Attribute("long_name", "raw sensor values")
+        );
+        image.putAttribute (
+          useCF ? new Attribute("units","count") :
+          new Attribute("units", "sensor counts")
+        );
+        // 2 byte counts are unsigned in the area file
+        if (rawNative && dw != 1 && dw != 4) {
+          image.putAttribute (
+            new Attribute("_Unsigned", "true")
+          );
+        }
+        break;
       case Calibrator.CAL_RAD:
       default:
         image.putAttribute (
@@ -565,8 +923,13 @@ private static final String VERSION = "1.7";
     }
 
 
-    ProtoVariable lats = new ProtoVariable("lats", Float.TYPE, llDim);
-    ProtoVariable lons = new ProtoVariable("lons", Float.TYPE, llDim);
+    Class llType = packLatLon ? Short.TYPE : Float.TYPE;
+    ProtoVariable lats = new ProtoVariable("lats", llType, llDim);
+    ProtoVariable lons = new ProtoVariable("lons", llType, llDim);
+    if (packLatLon) {
+      Packing.LAT.putAttributes(lats);
+      Packing.LON.putAttributes(lons);
+    }
 
     /* do lat/lon nav only if nav flag is set */
     if (navFlag != 0) {
@@ -591,19 +954,42 @@ private static final String VERSION = "1.7";
 
     }
 
-    // finally, create the NetCDF object
-    NetcdfFile nf = new NetcdfFile(fOutName, true, true, schema);
+    // grid mapping and its projection coordinates
+    ProtoVariable crs = new ProtoVariable (
+      GridMapping.NAME,
+      Integer.TYPE,
+      (Dimension []) null
+    );
+    ProtoVariable xCoord = new ProtoVariable("x", Double.TYPE, new Dimension[] {x});
+    ProtoVariable yCoord = new ProtoVariable("y", Double.TYPE, new Dimension[] {y});
+    if (gm != null) {
+      schema.put(crs);
+      gm.putAttributes(crs);
+      schema.put(xCoord);
+      GridMapping.putCoordinateAttributes(xCoord, "x");
+      schema.put(yCoord);
+      GridMapping.putCoordinateAttributes(yCoord, "y");
+    }
+
+    // finally, create the NetCDF object.  every value is written
+    // below, so don't have the library write fill values first
+    NetcdfFile nf = new NetcdfFile(fOutName, true, false, schema);
 
     // now, load all the actual data.  start with ancillary data
     int [] origin = {0};
-    nf.get(adNLines.getName()).setInt(origin, ad.getNumLines());
-    nf.get(adNElems.getName()).setInt(origin, ad.getNumElements());
-    nf.get(adLineRes.getName()).setInt(origin, ad.getLineRes());
-    nf.get(adElemRes.getName()).setInt(origin, ad.getElemRes());
+    if (gm != null) {
+      nf.get(crs.getName()).setInt(new int[0], 0);
+      nf.get(xCoord.getName()).copyin(origin, new ArrayMultiArray((Object) gm.getX()));
+      nf.get(yCoord.getName()).copyin(origin, new ArrayMultiArray((Object) gm.getY()));
+    }
+    nf.get(adNLines.getName()).setInt(origin, win.getNumLines());
+    nf.get(adNElems.getName()).setInt(origin, win.getNumElems());
+    nf.get(adLineRes.getName()).setInt(origin, lineRes);
+    nf.get(adElemRes.getName()).setInt(origin, elemRes);
     nf.get(adImgDate.getName()).setInt(origin, ad.getImageDate());
     nf.get(adImgTime.getName()).setInt(origin, ad.getImageTime());
-    nf.get(adSLine.getName()).setInt(origin, ad.getStartLine());
-    nf.get(adSElem.getName()).setInt(origin, ad.getStartElem());
+    nf.get(adSLine.getName()).setInt(origin, sl);
+    nf.get(adSElem.getName()).setInt(origin, se);
     nf.get(adCrDate.getName()).setInt(origin, ad.getCreationDate());
     nf.get(adCrTime.getName()).setInt(origin, ad.getCreationTime());
     String sensorString;
@@ -712,9 +1098,11 @@ private static final String VERSION = "1.7";
         break;
 
     }
-    for (int i = 0; i < sensorString.length(); i++) {
+    for (int i = 0; i < sidLength.getLength(); i++) {
       origin[0] = i;
-      nf.get(adSensorID.getName()).setChar(origin, sensorString.charAt(i));
+      nf.get(adSensorID.getName()).setChar (
+        origin, (i < sensorString.length()) ? sensorString.charAt(i) : '\0'
+      );
     }
     origin[0] = 0;
 
@@ -723,81 +1111,52 @@ private static final String VERSION = "1.7";
     nf.get(adPfxSize.getName()).setInt(origin, ad.getPrefixSize());
     nf.get(adProjNum.getName()).setInt(origin, ad.getProjectNum());
 
-    // figure out exactly which bands are present
-    int bandMap = ad.getBandMap();
-    int bandIdx = 0;
-    int bandArr[] = new int[ad.getNumBands()];
-    for (int i = 0; i < 32; i++) {
-      if (((bandMap >> i) & 0x0001) > 0) {
-        bandArr[bandIdx] = i + 1;
-        System.out.println("data present from channel: " + (i+1));
-        bandIdx++;
-      }
-    }
-
     // stuff this list in the NetCDF file
     if (awipsFlag == 0) {
       ArrayMultiArray bandMA = new ArrayMultiArray((Object) bandArr);
       nf.get(bands.getName()).copyin(origin, bandMA);
     }
 
-    // now, load and calibrate the raw data
-
-    // set cal type if we have a valid calibrator
-    c.setCalType(ad.getCalType());
-
-    // allocate buffers for image line chunks of the array data
-    float dataLine [][][] = null; 
-    byte awipsLine [][] = null; 
-    byte byteLine [][][] = null;
-
-    if ((awipsFlag == 1) || (calTypeOut == Calibrator.CAL_BRIT)) {
-      if (awipsFlag == 1) {
-        awipsLine = new byte[ad.getNumBands()][ad.getNumElements()];
-      } else {
-        byteLine = new byte[ad.getNumBands()][1][ad.getNumElements()];
+    // lats/lons saved from an earlier image of the same sector
+    LineNavigator ln = null;
+    if (navFlag != 0 && n != null && navCacheDir != null) {
+      try {
+        NavCache cache =
+          new NavCache(new File(navCacheDir), navCacheMB * 1024L * 1024L);
+        String key = NavCache.key(si.getNavBlock(), ad, win, navInterpKm);
+        cacheIn = cache.open(key, win.getNumLines(), win.getNumElems());
+        ln = cacheIn;
+        if (ln != null) {
+          if (!isQuiet) System.out.println("navigation from cache " + key);
+        } else {
+          cacheOut = cache.create(key, win.getNumLines(), win.getNumElems());
+        }
+      } catch (IOException e) {
+        System.out.println("navigation cache not used: " + e);
+        ln = null;
+        cacheOut = null;
       }
-    } else {
-      dataLine = new float[ad.getNumBands()][1][ad.getNumElements()];
     }
 
-    float tmpLine [] = 
-      new float[ad.getNumElements() * ad.getNumBands()];
-
-    // again, only do lat/lon if nav flag set 
-    double linEles [][] = new double[2][ad.getNumElements()];;
-    double latLons [][] = new double[2][ad.getNumElements()];;
-    float latArr [][] = new float[1][ad.getNumElements()];
-    float lonArr [][] = new float[1][ad.getNumElements()];
-    if (navFlag != 0) {
-      // initialize element part of this nav buffer - values won't change
-      for (int element = 0; element < ad.getNumElements(); element++) {
-        //linEles[1][element] = element + se; 
-
-        // use file coordinates for GVAR
-        linEles[0][element] = element; 
-      }
+    // exact navigation on a grid, interpolated in between
+    if (ln == null && navFlag != 0 && n != null && navInterpKm > 0.0f) {
+      NavGrid grid =
+        new NavGrid(n, win, navInterpKm);
+      if (!isQuiet) System.out.println("navigation grid: " +
+        grid.getNumNavigated() + " points navigated");
+      ln = grid;
     }
 
-    // initialize the data, lat, lon indices
-    // get handles to the variables we'll use
-
-    // use this origin for -AWIPS option
-    int [] awipsOrigin = new int[2];
-    awipsOrigin[0] = 0;
-    awipsOrigin[1] = 0;
-
-    int [] dataOrigin = new int[3];
-    dataOrigin[0] = 0;
-    dataOrigin[1] = 0;
-    dataOrigin[2] = 0;
-    Variable dataV = nf.get(image.getName());
+    // the header and small variables are done; image lines and
+    // lats/lons are written straight to the file from here on
+    nf.close();
+    sw = new SlabWriter(fOutName);
+    SlabWriter.Var dataV = sw.get(image.getName());
+    SlabWriter.Var latsV = sw.get(lats.getName());
+    SlabWriter.Var lonsV = sw.get(lons.getName());
 
-    int [] llOrigin = new int[2];
-    llOrigin[0] = 0;
-    llOrigin[1] = 0;
-    Variable latsV = nf.get(lats.getName());
-    Variable lonsV = nf.get(lons.getName());
+    // AWIPS output is 2-D bytes only when it really is brightness
+    boolean awipsOut = (awipsFlag == 1) && (calTypeOut == Calibrator.CAL_BRIT);
 
     // fetch, calibrate, and store all the data lines
     System.out.println("Image date/time = "+ad.getImageDate()+" / "+
@@ -809,12 +1168,15 @@ private static final String VERSION = "1.7";
     int height=0;
     if (gifFlag != 0) {
       try {
-        MediaTracker mt = new MediaTracker(this);
+        // any component will do as image observer; a Canvas, unlike
+        // a Frame, can be made on a headless batch host
+        Component observer = new Canvas();
+        MediaTracker mt = new MediaTracker(observer);
         Image img = Toolkit.getDefaultToolkit().getImage(GIFFilename);
         mt.addImage(img,0);
         mt.waitForAll();
-        width = img.getWidth(this);
-        height = img.getHeight(this);
+        width = img.getWidth(observer);
+        height = img.getHeight(observer);
         if (!isQuiet) System.out.println("GIF/JPEG height/width = "+height+" "+width);
         pixels = new int[ width * height ];
         PixelGrabber pg = new
@@ -839,111 +1201,97 @@ private static final String VERSION = "1.7";
     rgb[0] = 0;
 
      if (!isQuiet) System.out.println("AREA lines/elements="+
-         ad.getNumLines()+" / "+ ad.getNumElements());
-
-    for (int lineNum = 0; lineNum < ad.getNumLines(); lineNum++) {
-      if (!isQuiet) {
-        System.out.print(".");
-        charCount++;
-        if (charCount == 72) {
-          charCount = 0;
-          System.out.println("");
-        }
-      }
-      if (gifFlag == 0) tmpLine = sd.nextLine(tmpLine);
-
-      // calibrate the data
-      int numBands = ad.getNumBands();
-      for (bandIdx = 0; bandIdx < ad.getNumBands(); bandIdx++) {
-
-        for (int element = 0; element < ad.getNumElements(); element++) {
-          if (calTypeOut == Calibrator.CAL_BRIT) {
-            if (awipsFlag == 1) {
-              if (gifFlag == 1 ) {
-                int val= pixels[element+lineNum*width]; // get pixel from GIF
-                val = val & 0x00ffffff;
-                int gotit=-1;
-                for (int ki =0; ki<=maxrgb; ki++) {
-                  if (val == rgb[ki]) { gotit=ki;  break;}
-                }
-                if (gotit < 0) {
-                  maxrgb++;
-                  if (maxrgb > 255) maxrgb = 255;
-                  rgb[maxrgb] = val;
-                  gotit = maxrgb;
-                }
-
-                awipsLine[0][element] = (byte) gotit;
-
-              } else {
-                awipsLine[bandIdx][element] = (byte) 
-                  c.calibrate (
-                    tmpLine[bandIdx + (element * numBands)],
-                    bandArr[bandIdx], 
-                    calTypeOut
-                  );
-              }
-            } else {
-              byteLine[bandIdx][0][element] = (byte) 
-                c.calibrate (
-                  tmpLine[bandIdx + (element * numBands)],
-                  bandArr[bandIdx], 
-                  calTypeOut
-                );
-            }
-          } else {
-
-            dataLine[bandIdx][0][element] = 
-              c.calibrate (
-                tmpLine[bandIdx + (element * numBands)],
-                bandArr[bandIdx], 
-                calTypeOut
-              );
-          }
-        }
-      }
+         win.getNumLines()+" / "+ win.getNumElems());
 
-      // store this line
-      dataOrigin[1] = lineNum;
-      awipsOrigin[0] = lineNum;
-      if (calTypeOut == Calibrator.CAL_BRIT) {
-        if (awipsFlag == 1) {
-          dataV.copyin ( awipsOrigin, new ArrayMultiArray(awipsLine) );
-        } else {
-          dataV.copyin ( dataOrigin, new ArrayMultiArray(byteLine) );
-        }
+    ProgressBar pb = new ProgressBar(isQuiet, charCount);
+    monitor.start(ad.getNumLines(), win.getNumLines(),
+      (long) win.getNumElems() * win.getNumBands() * ad.getDataWidth());
+    pb.setMonitor(monitor);
+
+    if (partition && threads == 1) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    if (partition && si.getMAF() == null) {
+      System.out.println("not a mapped local file, not partitioned");
+      partition = false;
+    }
+
+    if (threads > 1 && gifFlag == 0) {
+
+      // calibrate and navigate on worker threads
+      ConversionPipeline cp = new ConversionPipeline (
+        si, threads, calTypeOut, awipsOut, rawNative, navFlag != 0
+      );
+      cp.setPacking(packImage, packLatLon);
+      cp.setWindow(win);
+      cp.setStats(stats);
+      cp.setReadAhead(readAheadLines);
+      if (partition) {
+        cp.runPartitioned(ct, ln, cacheOut, dataV, latsV, lonsV, pb);
       } else {
-        dataV.copyin ( dataOrigin, new ArrayMultiArray(dataLine) );
+        cp.run(ct, ln, cacheOut, dataV, latsV, lonsV, pb);
       }
 
-      if (navFlag != 0) {
+    } else {
 
-        // set up the nav buffer for this line
-        for (int element = 0; element < ad.getNumElements(); element++) {
-          //linEles[0][element] = lineNum + sl; 
-          // use file coordinates for GVAR
-          linEles[1][element] = lineNum; 
+      LineBlock block = new LineBlock (
+        ad, 1, calTypeOut, awipsOut, rawNative, navFlag != 0
+      );
+      block.setPacking(packImage, packLatLon);
+      block.setWindow(win);
+      block.setStats(stats);
+
+      for (int lineNum = 0; lineNum < win.getNumLines(); lineNum++) {
+
+        block.setLines(lineNum, 1);
+
+        if (gifFlag == 1) {
+          byte [][] awipsLine = block.getAwipsOut();
+          for (int element = 0; element < win.getNumElems(); element++) {
+            int val= pixels[(int) win.toFileElem(element)+(int) win.toFileLine(lineNum)*width]; // get pixel from GIF
+            val = val & 0x00ffffff;
+            int gotit=-1;
+            for (int ki =0; ki<=maxrgb; ki++) {
+              if (val == rgb[ki]) { gotit=ki;  break;}
+            }
+            if (gotit < 0) {
+              maxrgb++;
+              if (maxrgb > 255) maxrgb = 255;
+              rgb[maxrgb] = val;
+              gotit = maxrgb;
+            }
+
+            awipsLine[0][element] = (byte) gotit;
+          }
+        } else {
+          block.read(sd);
+          block.calibrate(ct);
         }
 
-        // do the transformation for this line
-        if (n != null) {
-          latLons = n.toLatLon(linEles);
+        if (ln != null) {
+          block.navigate(ln);
+        } else {
+          block.navigate(n);
         }
 
-        // copy these into the big lat, lon buffers
-        for (int element = 0; element < ad.getNumElements(); element++) {
-          latArr[0][element] = (float) latLons[0][element];
-          lonArr[0][element] = (float) latLons[1][element];
+        // store this line
+        block.write(dataV, latsV, lonsV);
+        if (cacheOut != null) {
+          cacheOut.put(lineNum, block.getLats(), block.getLons());
         }
+        pb.lines(1);
 
-        // store these lats and lons
-        llOrigin[0] = lineNum;
+      }
 
-        latsV.copyin ( llOrigin, new ArrayMultiArray(latArr) );
-        lonsV.copyin ( llOrigin, new ArrayMultiArray(lonArr) );
+    }
 
+    // publish the new lats/lons for the next image of this sector
+    if (cacheOut != null) {
+      try {
+        cacheOut.commit();
+      } catch (IOException e) {
+        System.out.println("navigation cache not updated: " + e);
       }
-
     }
 
     System.out.println("");
@@ -953,11 +1301,53 @@ private static final String VERSION = "1.7";
 
     // close the object out
     System.out.println(encStr + " using AreaToNetCDF version " + VERSION);
-    nf.close();
+    if (stats != null) {
+      stats.start();
+    }
+    sw.close();
+    if (stats != null) {
+      stats.stop(ConversionStats.CLOSE, -1, 0, 0L);
+    }
+    converted = true;
 
   } catch (Exception e) {
     e.printStackTrace();
     System.out.println(e);
+    if (cacheOut != null) {
+      cacheOut.abort();
+    }
+    if (sw != null) {
+      sw.abort();
+    }
+  } finally {
+    if (sd != null) {
+      sd.stopReadAhead();
+    }
+    if (si != null) {
+      try {
+        si.close();
+      } catch (IOException e) {
+        System.out.println("input not closed: " + e);
+      }
+    }
+    if (cacheIn != null) {
+      try {
+        cacheIn.close();
+      } catch (IOException e) {
+        // nothing more to do
+      }
+    }
+    if (monitor != null) {
+      ConversionMonitor.finish(monitor, converted, new File(fOutName).length());
+    }
+    if (stats != null && statsFile != null) {
+      try {
+        stats.write(statsFile, fOutName, converted);
+        System.out.println("stats written to " + statsFile);
+      } catch (IOException e) {
+        System.out.println("stats not written: " + e);
+      }
+    }
   }
 
   }
@@ -0,0 +1,237 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchConverter runs many AreaToNetCDF conversions in one JVM, so
+ * startup and JIT warm-up are paid once per batch instead of once
+ * per file.  Files come from a list file (one '<areafile> [<netcdf>]'
+ * per line, '#' starts a comment) or from a glob on file names.
+ * Every other option is passed through to each conversion.  A
+ * failed file is reported and the batch goes on; the exit status
+ * is the number of failed files, capped at 255.
+ *
+ * With -WORKERS<n>, n files are converted at the same time; their
+ * progress bars are turned off, since they would only interleave.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class BatchConverter {
+
+  private List<String []> jobs = new ArrayList<String []>();
+  private List<String> options = new ArrayList<String>();
+  private int workers = 1;
+
+  /**
+   *
+   * run a batch from the command line
+   *
+   * @param args        -BATCH<listfile|glob> first, then options
+   *
+   * @return            exit status
+   *
+   */
+
+  public static int run(String [] args)
+
+  {
+    BatchConverter bc;
+    try {
+      bc = new BatchConverter(args);
+    } catch (IOException e) {
+      System.out.println("batch: " + e);
+      return 255;
+    }
+    return Math.min(bc.convertAll(), 255);
+  }
+
+  /**
+   *
+   * constructor; reads the list of files to convert
+   *
+   * @param args        -BATCH<listfile|glob> first, then options
+   *
+   */
+
+  public BatchConverter(String [] args)
+    throws IOException
+
+  {
+    String source = args[0].substring(6);
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].indexOf("-WORKERS") >= 0) {
+        try {
+          workers = Math.max(1, Integer.parseInt(args[i].substring(8)));
+        } catch (NumberFormatException e) {
+          workers = Runtime.getRuntime().availableProcessors();
+        }
+      } else {
+        options.add(args[i]);
+      }
+    }
+    if (workers > 1 && !options.contains("-Q")) {
+      options.add("-Q");
+    }
+
+    if (source.indexOf('*') >= 0 || source.indexOf('?') >= 0) {
+      readGlob(source);
+    } else {
+      readList(new File(source));
+    }
+  }
+
+  /**
+   *
+   * add every file matching a glob, in name order
+   *
+   */
+
+  private void readGlob(String glob)
+    throws IOException
+
+  {
+    File f = new File(glob);
+    File dir = f.getParentFile();
+    if (dir == null) {
+      dir = new File(".");
+    }
+
+    List<String> names = new ArrayList<String>();
+    DirectoryStream<Path> ds = Files.newDirectoryStream(dir.toPath(), f.getName());
+    try {
+      for (Path p : ds) {
+        if (Files.isRegularFile(p)) {
+          names.add(p.toString());
+        }
+      }
+    } finally {
+      ds.close();
+    }
+
+    Collections.sort(names);
+    for (int i = 0; i < names.size(); i++) {
+      jobs.add(new String [] {names.get(i)});
+    }
+  }
+
+  /**
+   *
+   * add every file named in a list file
+   *
+   */
+
+  private void readList(File list)
+    throws IOException
+
+  {
+    BufferedReader br = new BufferedReader(new FileReader(list));
+    try {
+      String line;
+      while ((line = br.readLine()) != null) {
+        int hash = line.indexOf('#');
+        if (hash >= 0) {
+          line = line.substring(0, hash);
+        }
+        line = line.trim();
+        if (line.length() > 0) {
+          jobs.add(line.split("\\s+"));
+        }
+      }
+    } finally {
+      br.close();
+    }
+  }
+
+  /**
+   *
+   * convert every file; return the number that failed
+   *
+   */
+
+  public int convertAll()
+
+  {
+    System.out.println("batch: " + jobs.size() + " files, " +
+      workers + " at a time");
+    long start = System.currentTimeMillis();
+
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (int i = 0; i < jobs.size(); i++) {
+      final String [] job = jobs.get(i);
+      results.add(pool.submit(new Callable<Boolean>() {
+        public Boolean call() {
+          return convert("batch", job, options);
+        }
+      }));
+    }
+    pool.shutdown();
+
+    int failed = 0;
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        if (!results.get(i).get()) {
+          failed++;
+        }
+      } catch (Exception e) {
+        failed++;
+      }
+    }
+
+    System.out.println("batch: " + (jobs.size() - failed) + " converted, " +
+      failed + " failed, " +
+      (System.currentTimeMillis() - start) / 1000.0 + " s");
+    return failed;
+  }
+
+  /**
+   *
+   * convert one file and report the result
+   *
+   * @param tag         prefix for the report line
+   * @param job         input file name, and output file name if given
+   * @param options     options for the conversion
+   *
+   */
+
+  static boolean convert(String tag, String [] job, List<String> options)
+
+  {
+    String [] args = new String[job.length + options.size()];
+    System.arraycopy(job, 0, args, 0, job.length);
+    for (int i = 0; i < options.size(); i++) {
+      args[job.length + i] = options.get(i);
+    }
+
+    long start = System.currentTimeMillis();
+    boolean ok = false;
+    String why = "conversion did not finish";
+    try {
+      ok = new AreaToNetCDF(args).isConverted();
+    } catch (Throwable t) {
+      why = t.toString();
+    }
+    double secs = (System.currentTimeMillis() - start) / 1000.0;
+
+    String target = (job.length > 1) ? " -> " + job[1] : "";
+    if (ok) {
+      System.out.println(tag + ": OK " + job[0] + target + " (" + secs + " s)");
+    } else {
+      System.out.println(tag + ": FAILED " + job[0] + target + ": " + why);
+    }
+    return ok;
+  }
+
+}
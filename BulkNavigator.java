@@ -0,0 +1,127 @@
+/**
+ * BulkNavigator gives the Navigator bulk methods to navigators that
+ * wrap a visad AREAnav, whose toLatLon/toLinEle take and return
+ * arrays ordered [element][line] and [lat][lon].  The input points
+ * are staged in scratch arrays kept between calls, and the results
+ * are copied straight into the caller's arrays, so the only garbage
+ * left per call is the result array AREAnav itself allocates.
+ *
+ * Like the AREAnav objects they wrap, these navigators are not safe
+ * for use by several threads at once.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+abstract class BulkNavigator implements Navigator {
+
+  // staged input points, [element/lat][line/lon]; AREAnav navigates
+  // whole arrays, so these are kept exactly as long as the last call
+  // needed, which for a conversion is always one image line
+  private double [][] scratch = new double[2][0];
+
+  /**
+   *
+   * return the scratch arrays, len long
+   *
+   */
+
+  private double [][] scratch(int len)
+
+  {
+    if (scratch[0].length != len) {
+      scratch = new double[2][len];
+    }
+    return scratch;
+  }
+
+  /**
+   *
+   * given lines/elements, fill in the corresponding lats/lons
+   *
+   * @param lines       line numbers
+   * @param elems       element numbers
+   * @param off         first point to do, in all four arrays
+   * @param len         number of points
+   * @param lats        latitudes out
+   * @param lons        longitudes out
+   *
+   */
+
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    float [] lats,
+    float [] lons
+  )
+
+  {
+    double [][] ll = latLon(lines, elems, off, len);
+    for (int i = 0; i < len; i++) {
+      lats[off + i] = (float) ll[0][i];
+      lons[off + i] = (float) ll[1][i];
+    }
+  }
+
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    double [] lats,
+    double [] lons
+  )
+
+  {
+    double [][] ll = latLon(lines, elems, off, len);
+    System.arraycopy(ll[0], 0, lats, off, len);
+    System.arraycopy(ll[1], 0, lons, off, len);
+  }
+
+  private double [][] latLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len
+  )
+
+  {
+    double [][] linEle = scratch(len);
+    System.arraycopy(elems, off, linEle[0], 0, len);
+    System.arraycopy(lines, off, linEle[1], 0, len);
+    return toLatLon(linEle);
+  }
+
+  /**
+   *
+   * given lats/lons, fill in the corresponding lines/elements
+   *
+   * @param lats        latitudes
+   * @param lons        longitudes
+   * @param off         first point to do, in all four arrays
+   * @param len         number of points
+   * @param lines       line numbers out
+   * @param elems       element numbers out
+   *
+   */
+
+  public void toLinEle (
+    double [] lats,
+    double [] lons,
+    int off,
+    int len,
+    double [] lines,
+    double [] elems
+  )
+
+  {
+    double [][] latLon = scratch(len);
+    System.arraycopy(lats, off, latLon[0], 0, len);
+    System.arraycopy(lons, off, latLon[1], 0, len);
+    double [][] linEle = toLinEle(latLon);
+    System.arraycopy(linEle[0], 0, elems, off, len);
+    System.arraycopy(linEle[1], 0, lines, off, len);
+  }
+
+}
@@ -0,0 +1,392 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import edu.wisc.ssec.mcidas.AncillaryData;
+import edu.wisc.ssec.mcidas.Calibrator;
+
+/**
+ * CalibrationTable serves calibrated values out of per band lookup
+ * tables instead of calling the Calibrator for every pixel.  Each
+ * table holds the calibrated value of every count the data width
+ * allows (256 for 1 byte data, 65536 otherwise), so lookups return
+ * exactly what Calibrator.calibrate would.  Tables are kept in a
+ * small LRU cache keyed by calibrator class, cal block, band and
+ * output type, so images sharing a cal block reuse them.  4 byte
+ * data that keeps all 32 bits can't be tabled and goes straight to
+ * the calibrator.  Calibrators aren't thread safe, so such data is
+ * calibrated a line at a time under the calibrator's lock: it
+ * doesn't scale across -THREADS or -PARTITION workers.
+ *
+ * For packed output the tables also give the range of values the
+ * sensor's counts can calibrate to, and are turned into tables of
+ * packed shorts, so packing adds no work to the pixel loop.  The
+ * range leaves out counts the sensor never produces: GVAR keeps its
+ * 10 bit counts in the top of 15 bits, and the 2 byte counts above
+ * those calibrate to values so extreme that the packing would have
+ * no precision left for real ones.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class CalibrationTable {
+
+  // most tables kept around between images; 65536 entry tables
+  // are 256 KB each
+  private static final int MAX_CACHED = 64;
+
+  private static final Map<Key, float[]> cache =
+    new LinkedHashMap<Key, float[]>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Key, float[]> e) {
+        return size() > MAX_CACHED;
+      }
+    };
+
+  private Calibrator c;
+  private int [] bandArr;
+  private int calTypeOut;
+  private float [][] tables = null;
+  private int base = 0;
+
+  // table entries the sensor can produce, from the first
+  private int validSize = 0;
+
+  // packed output: the tables run through the packing once, so
+  // packing costs nothing per pixel
+  private Packing packing = null;
+  private short [][] packedTables = null;
+
+  /**
+   *
+   * constructor.  The calibrator must already have its input cal
+   * type set.
+   *
+   * @param C           Calibrator object
+   * @param calBlock    cal block the calibrator was made from, or null
+   * @param ad          AncillaryData object
+   * @param BandArr     band number for each band index
+   * @param CalTypeOut  output calibration type
+   *
+   */
+
+  public CalibrationTable (
+    Calibrator C,
+    int [] calBlock,
+    AncillaryData ad,
+    int [] BandArr,
+    int CalTypeOut
+  )
+
+  {
+    c = C;
+    bandArr = BandArr;
+    calTypeOut = CalTypeOut;
+
+    // range of counts SensorData can hand us
+    int size;
+    int dw = ad.getDataWidth();
+    if (dw == 1) {
+      size = 256;
+      base = 128;
+    } else if (dw != 4 || ad.isSwapped()) {
+      size = 65536;
+      base = 0;
+    } else {
+      return;
+    }
+    validSize = size;
+    if (size == 65536 && isGvar(ad.getSensorId())) {
+      validSize = 32768;
+    }
+
+    tables = new float[bandArr.length][];
+    for (int i = 0; i < bandArr.length; i++) {
+      Key k = new Key(c, calBlock, ad, bandArr[i], calTypeOut, size);
+      synchronized (cache) {
+        tables[i] = cache.get(k);
+      }
+      if (tables[i] == null) {
+        tables[i] = build(bandArr[i], size);
+        synchronized (cache) {
+          cache.put(k, tables[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   *
+   * return true for the GVAR sensors ScienceImage makes GVAR
+   * calibrators for
+   *
+   */
+
+  private static boolean isGvar(int sid)
+
+  {
+    return (sid >= 70 && sid <= 79) || sid == 180 || sid == 181;
+  }
+
+  /**
+   *
+   * calibrate every count for one band
+   *
+   */
+
+  private float[] build(int band, int size)
+
+  {
+    float [] t = new float[size];
+    synchronized (c) {
+      for (int i = 0; i < size; i++) {
+        t[i] = c.calibrate((float) (i - base), band, calTypeOut);
+      }
+    }
+    return t;
+  }
+
+  /**
+   *
+   * return true if values are served from tables
+   *
+   */
+
+  public boolean isTabled() {
+    return tables != null;
+  }
+
+  /**
+   *
+   * return the smallest and largest finite value the sensor's counts
+   * calibrate to, or null if there are no tables
+   *
+   */
+
+  public float[] range()
+
+  {
+    if (tables == null) {
+      return null;
+    }
+    float min = Float.POSITIVE_INFINITY;
+    float max = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < tables.length; i++) {
+      float [] t = tables[i];
+      for (int j = 0; j < validSize; j++) {
+        float v = t[j];
+        if (v < min && !Float.isInfinite(v)) {
+          min = v;
+        }
+        if (v > max && !Float.isInfinite(v)) {
+          max = v;
+        }
+      }
+    }
+    if (min > max) {
+      // nothing but NaN and infinities
+      return new float[] {0.0f, 0.0f};
+    }
+    return new float[] {min, max};
+  }
+
+  /**
+   *
+   * set the packing for calibrate(..., short[])
+   *
+   * @param p           Packing object
+   *
+   */
+
+  public void setPacking(Packing p)
+
+  {
+    packing = p;
+    packedTables = null;
+    if (tables != null) {
+      packedTables = new short[tables.length][];
+      for (int i = 0; i < tables.length; i++) {
+        float [] t = tables[i];
+        short [] pt = new short[t.length];
+        for (int j = 0; j < t.length; j++) {
+          pt[j] = p.pack(t[j]);
+        }
+        packedTables[i] = pt;
+      }
+    }
+  }
+
+  /**
+   *
+   * calibrate a single value
+   *
+   * @param value       raw count
+   * @param bandIdx     index into the band array
+   *
+   */
+
+  public float calibrate(float value, int bandIdx)
+
+  {
+    if (tables != null) {
+      int idx = (int) value + base;
+      float [] t = tables[bandIdx];
+      if (idx >= 0 && idx < t.length) {
+        return t[idx];
+      }
+    }
+    synchronized (c) {
+      return c.calibrate(value, bandArr[bandIdx], calTypeOut);
+    }
+  }
+
+  /**
+   *
+   * calibrate one band out of a line of band interleaved values
+   *
+   * @param line        raw line, bands interleaved
+   * @param bandIdx     index into the band array
+   * @param numBands    number of interleaved bands
+   * @param out         calibrated values for the band
+   *
+   */
+
+  public float[] calibrate (
+    float [] line,
+    int bandIdx,
+    int numBands,
+    float [] out
+  )
+
+  {
+    if (tables == null) {
+      // one lock for the line, not one per pixel
+      int band = bandArr[bandIdx];
+      synchronized (c) {
+        for (int i = 0; i < out.length; i++) {
+          out[i] = c.calibrate(line[bandIdx + (i * numBands)], band, calTypeOut);
+        }
+      }
+      return out;
+    }
+    for (int i = 0; i < out.length; i++) {
+      out[i] = calibrate(line[bandIdx + (i * numBands)], bandIdx);
+    }
+    return out;
+  }
+
+  /**
+   *
+   * calibrate one band out of a line of band interleaved values, to
+   * bytes, as (byte) calibrate(value, bandIdx) would
+   *
+   * @param line        raw line, bands interleaved
+   * @param bandIdx     index into the band array
+   * @param numBands    number of interleaved bands
+   * @param out         calibrated values for the band
+   *
+   */
+
+  public byte[] calibrate (
+    float [] line,
+    int bandIdx,
+    int numBands,
+    byte [] out
+  )
+
+  {
+    if (tables == null) {
+      int band = bandArr[bandIdx];
+      synchronized (c) {
+        for (int i = 0; i < out.length; i++) {
+          out[i] = (byte) c.calibrate(line[bandIdx + (i * numBands)], band, calTypeOut);
+        }
+      }
+      return out;
+    }
+    for (int i = 0; i < out.length; i++) {
+      out[i] = (byte) calibrate(line[bandIdx + (i * numBands)], bandIdx);
+    }
+    return out;
+  }
+
+  /**
+   *
+   * calibrate and pack one band out of a line of band interleaved
+   * values; setPacking must have been called
+   *
+   * @param line        raw line, bands interleaved
+   * @param bandIdx     index into the band array
+   * @param numBands    number of interleaved bands
+   * @param out         packed calibrated values for the band
+   *
+   */
+
+  public short[] calibrate (
+    float [] line,
+    int bandIdx,
+    int numBands,
+    short [] out
+  )
+
+  {
+    short [] pt = (packedTables != null) ? packedTables[bandIdx] : null;
+    for (int i = 0; i < out.length; i++) {
+      float value = line[bandIdx + (i * numBands)];
+      int idx = (int) value + base;
+      if (pt != null && idx >= 0 && idx < pt.length) {
+        out[i] = pt[idx];
+      } else {
+        out[i] = packing.pack(calibrate(value, bandIdx));
+      }
+    }
+    return out;
+  }
+
+  /**
+   *
+   * cache key: everything a table's contents depend on
+   *
+   */
+
+  private static class Key {
+
+    private String calClass;
+    private int [] calBlock;
+    private int sensorId;
+    private int calTypeIn;
+    private int band;
+    private int calTypeOut;
+    private int size;
+    private int hash;
+
+    Key(Calibrator c, int [] cb, AncillaryData ad, int b, int cto, int sz) {
+      calClass = c.getClass().getName();
+      calBlock = cb;
+      sensorId = ad.getSensorId();
+      calTypeIn = ad.getCalType();
+      band = b;
+      calTypeOut = cto;
+      size = sz;
+      hash = Arrays.hashCode(new int[] {
+        calClass.hashCode(), Arrays.hashCode(calBlock), sensorId,
+        calTypeIn, band, calTypeOut, size
+      });
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return hash == k.hash && band == k.band &&
+        calTypeOut == k.calTypeOut && calTypeIn == k.calTypeIn &&
+        sensorId == k.sensorId && size == k.size &&
+        calClass.equals(k.calClass) && Arrays.equals(calBlock, k.calBlock);
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+import java.util.Map;
+
+/**
+ * management interface of one conversion in progress, registered as
+ * AreaToNetCDF:type=Conversion,id=<n> while it runs.  Rates are over
+ * the last RATE_SECONDS seconds, so they fall to zero when a
+ * conversion stalls.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+public interface ConversionMXBean {
+
+  public static final int RATE_SECONDS = 10;
+
+  public String getInputFile();
+
+  public String getOutputFile();
+
+  public int getImageLines();
+
+  public int getLinesTotal();
+
+  public long getLinesDone();
+
+  public double getPercentDone();
+
+  public double getLinesPerSecond();
+
+  public double getMBPerSecond();
+
+  public double getElapsedSeconds();
+
+  public double getSecondsSinceProgress();
+
+  public Map<String, Double> getStageMillis();
+
+}
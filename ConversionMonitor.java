@@ -0,0 +1,338 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * ConversionMonitor publishes conversion progress over JMX, on the
+ * platform MBean server, for operators watching long conversions of
+ * large images.  AreaToNetCDF:type=Conversions holds counters over
+ * all conversions in the JVM (files, lines, bytes, failures) and the
+ * longest current stall; each running conversion has its own
+ * AreaToNetCDF:type=Conversion,id=<n>, with its file, lines done out
+ * of the total, recent lines/s and MB/s and, when stages are timed
+ * (-STATS, -STAGES or a flight recording), the time in each stage.
+ * A conversion is registered as soon as it begins, so one stalled
+ * opening or fetching its image shows up before it has any lines.
+ *
+ * Progress comes from the ProgressBar, a block of lines at a time,
+ * so the monitor costs a few adds per block.  If the MBeans can't be
+ * registered, conversions carry on without them.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ConversionMonitor implements ConversionMonitorMXBean {
+
+  private static final String DOMAIN = "AreaToNetCDF";
+
+  private static ConversionMonitor monitor = null;
+  private static long nextId = 0;
+
+  private AtomicLong started = new AtomicLong(0);
+  private AtomicLong converted = new AtomicLong(0);
+  private AtomicLong failed = new AtomicLong(0);
+  private AtomicLong linesDone = new AtomicLong(0);
+  private AtomicLong bytesRead = new AtomicLong(0);
+  private AtomicLong bytesWritten = new AtomicLong(0);
+  private List<Conversion> active = new ArrayList<Conversion>();
+
+  /**
+   *
+   * return the JVM's monitor, registering it the first time
+   *
+   */
+
+  private static synchronized ConversionMonitor get()
+
+  {
+    if (monitor == null) {
+      monitor = new ConversionMonitor();
+      register(monitor, DOMAIN + ":type=Conversions");
+    }
+    return monitor;
+  }
+
+  /**
+   *
+   * register an MBean; failure only costs the monitoring
+   *
+   */
+
+  private static boolean register(Object bean, String name)
+
+  {
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      mbs.registerMBean(bean, new ObjectName(name));
+      return true;
+    } catch (JMException e) {
+      System.out.println("conversion monitor not registered: " + e);
+    } catch (SecurityException e) {
+      System.out.println("conversion monitor not registered: " + e);
+    }
+    return false;
+  }
+
+  /**
+   *
+   * register a conversion as started; it must be finished, whether
+   * it converts or not
+   *
+   * @param In          input file name
+   * @param Out         output file name
+   * @param Stats       stage timing, or null
+   *
+   * @return            the conversion, to give progress and finish
+   *
+   */
+
+  public static Conversion begin(String In, String Out, ConversionStats Stats)
+
+  {
+    ConversionMonitor m = get();
+    m.started.incrementAndGet();
+    Conversion c = new Conversion(m, In, Out, Stats);
+    long id;
+    synchronized (ConversionMonitor.class) {
+      id = nextId++;
+    }
+    c.name = DOMAIN + ":type=Conversion,id=" + id;
+    if (!register(c, c.name)) {
+      c.name = null;
+    }
+    synchronized (m) {
+      m.active.add(c);
+    }
+    return c;
+  }
+
+  /**
+   *
+   * note a conversion is done and unregister it
+   *
+   * @param c           the conversion
+   * @param Converted   true if the output file was written
+   * @param OutBytes    output file size
+   *
+   */
+
+  public static void finish(Conversion c, boolean Converted, long OutBytes)
+
+  {
+    ConversionMonitor m = get();
+    synchronized (m) {
+      if (Converted) {
+        m.converted.incrementAndGet();
+        m.bytesWritten.addAndGet(OutBytes);
+      } else {
+        m.failed.incrementAndGet();
+      }
+      m.active.remove(c);
+    }
+    if (c.name != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(c.name));
+      } catch (JMException e) {
+        // already gone
+      }
+    }
+  }
+
+  public long getFilesStarted() {
+    return started.get();
+  }
+
+  public long getFilesConverted() {
+    return converted.get();
+  }
+
+  public long getFilesFailed() {
+    return failed.get();
+  }
+
+  public long getLinesConverted() {
+    return linesDone.get();
+  }
+
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  public synchronized int getActiveConversions() {
+    return active.size();
+  }
+
+  public synchronized String [] getCurrentFiles() {
+    String [] files = new String[active.size()];
+    for (int i = 0; i < files.length; i++) {
+      files[i] = active.get(i).in;
+    }
+    return files;
+  }
+
+  public synchronized double getLongestStallSeconds() {
+    double s = 0.0d;
+    for (Conversion c : active) {
+      s = Math.max(s, c.getSecondsSinceProgress());
+    }
+    return s;
+  }
+
+  /**
+   *
+   * Conversion is one conversion in progress.  Lines are counted in
+   * one second buckets, for the recent rates.
+   *
+   */
+
+  static class Conversion implements ConversionMXBean {
+
+    private ConversionMonitor m;
+    private String in;
+    private String out;
+    private int imageLines = 0;
+    private int lines = 0;
+    private long lineBytes = 0;
+    private ConversionStats stats;
+    private String name = null;
+
+    private long t0;
+    private long lastProgress;
+    private long done = 0;
+    private long [] bucketLines = new long[RATE_SECONDS + 1];
+    private long [] bucketSecond = new long[RATE_SECONDS + 1];
+
+    Conversion(ConversionMonitor M, String In, String Out, ConversionStats Stats)
+
+    {
+      m = M;
+      in = In;
+      out = Out;
+      stats = Stats;
+      t0 = System.nanoTime();
+      lastProgress = t0;
+    }
+
+    /**
+     *
+     * note that the image is open and its lines are about to be
+     * converted
+     *
+     * @param ImageLines  lines in the area file
+     * @param Lines       lines to be converted
+     * @param LineBytes   area data bytes decoded per line
+     *
+     */
+
+    public synchronized void start(int ImageLines, int Lines, long LineBytes)
+
+    {
+      imageLines = ImageLines;
+      lines = Lines;
+      lineBytes = LineBytes;
+      lastProgress = System.nanoTime();
+    }
+
+    /**
+     *
+     * note that lines have been stored
+     *
+     * @param count       number of lines
+     *
+     */
+
+    public void lines(int count)
+
+    {
+      long now = System.nanoTime();
+      long bytes;
+      synchronized (this) {
+        bytes = count * lineBytes;
+        done += count;
+        lastProgress = now;
+        long sec = (now - t0) / 1000000000L;
+        int b = (int) (sec % bucketLines.length);
+        if (bucketSecond[b] != sec) {
+          bucketSecond[b] = sec;
+          bucketLines[b] = 0;
+        }
+        bucketLines[b] += count;
+      }
+      m.linesDone.addAndGet(count);
+      m.bytesRead.addAndGet(bytes);
+    }
+
+    public String getInputFile() {
+      return in;
+    }
+
+    public String getOutputFile() {
+      return out;
+    }
+
+    public synchronized int getImageLines() {
+      return imageLines;
+    }
+
+    public synchronized int getLinesTotal() {
+      return lines;
+    }
+
+    public synchronized long getLinesDone() {
+      return done;
+    }
+
+    public synchronized double getPercentDone() {
+      return (lines > 0) ? 100.0d * done / lines : 0.0d;
+    }
+
+    public synchronized double getLinesPerSecond() {
+      // the full seconds of the window, and the current second so far
+      long now = System.nanoTime() - t0;
+      long sec = now / 1000000000L;
+      long n = 0;
+      for (int b = 0; b < bucketLines.length; b++) {
+        if (bucketSecond[b] <= sec && bucketSecond[b] >= sec - RATE_SECONDS) {
+          n += bucketLines[b];
+        }
+      }
+      double span = Math.min(now / 1.0e9d, RATE_SECONDS + (now % 1000000000L) / 1.0e9d);
+      return (span > 0.0d) ? n / span : 0.0d;
+    }
+
+    public synchronized double getMBPerSecond() {
+      return getLinesPerSecond() * lineBytes / 1.0e6d;
+    }
+
+    public double getElapsedSeconds() {
+      return (System.nanoTime() - t0) / 1.0e9d;
+    }
+
+    public synchronized double getSecondsSinceProgress() {
+      return (System.nanoTime() - lastProgress) / 1.0e9d;
+    }
+
+    public Map<String, Double> getStageMillis() {
+      Map<String, Double> ms = new LinkedHashMap<String, Double>();
+      if (stats != null) {
+        double [] t = stats.getStageMillis();
+        for (int s = 0; s < t.length; s++) {
+          ms.put(ConversionStats.STAGES[s], t[s]);
+        }
+      }
+      return ms;
+    }
+
+  }
+
+}
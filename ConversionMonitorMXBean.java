@@ -0,0 +1,30 @@
+/**
+ * management interface of the conversions run in this JVM, registered
+ * as AreaToNetCDF:type=Conversions.  Counters are cumulative over
+ * every conversion since the JVM started, whether run singly, in a
+ * batch, by the spool watcher or by the server.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+public interface ConversionMonitorMXBean {
+
+  public long getFilesStarted();
+
+  public long getFilesConverted();
+
+  public long getFilesFailed();
+
+  public long getLinesConverted();
+
+  public long getBytesRead();
+
+  public long getBytesWritten();
+
+  public int getActiveConversions();
+
+  public String [] getCurrentFiles();
+
+  public double getLongestStallSeconds();
+
+}
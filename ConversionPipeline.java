@@ -0,0 +1,439 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * ConversionPipeline runs the read, calibrate/navigate, write line
+ * loop on several threads.  A reader thread pulls blocks of lines
+ * from SensorData, a pool of workers calibrates and navigates them,
+ * and the calling thread writes finished blocks to the NetCDF
+ * variables strictly in line order.  The number of blocks in flight
+ * is fixed, which caps memory use.  Every block is processed by
+ * the same LineBlock code the serial loop uses, so output is the
+ * same byte for byte.
+ *
+ * A local, mapped area file can also be converted partitioned: the
+ * image is cut into ranges of lines, and each worker takes ranges
+ * and reads, calibrates, navigates and writes them on its own, with
+ * its own SensorData (reading ahead, if asked, within the range),
+ * line buffers and Navigator.  Lines are written
+ * at their own file offsets (see SlabWriter), so nothing waits for
+ * line order and the only thing the workers share is the counter
+ * handing out ranges.  The calibration tables are shared too, but
+ * are only read.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ConversionPipeline {
+
+  // lines per block handed to a worker
+  private static final int BLOCK_LINES = 32;
+
+  // partitioned: ranges per worker, so a worker that gets the cheap
+  // lines (space, say) takes more ranges instead of idling at the end
+  private static final int RANGES_PER_THREAD = 4;
+
+  // how long to wait for the reader and workers to stop after a
+  // failure
+  private static final int STOP_WAIT_SECONDS = 60;
+
+  private ScienceImage si;
+  private AncillaryData ad;
+  private int threads;
+  private int calTypeOut;
+  private boolean awips;
+  private boolean rawNative;
+  private boolean nav;
+  private boolean packImage = false;
+  private boolean packLatLon = false;
+  private ImageWindow window;
+  private ConversionStats stats = null;
+  private int readAhead = 0;
+
+  /**
+   *
+   * constructor
+   *
+   * @param SI          ScienceImage being converted
+   * @param Threads     number of calibrate/navigate workers
+   * @param CalTypeOut  output calibration type
+   * @param Awips       true for AWIPS (2-D byte) output
+   * @param RawNative   true to keep raw values at source width
+   * @param Nav         true to compute lats/lons
+   *
+   */
+
+  public ConversionPipeline (
+    ScienceImage SI,
+    int Threads,
+    int CalTypeOut,
+    boolean Awips,
+    boolean RawNative,
+    boolean Nav
+  )
+
+  {
+    si = SI;
+    ad = si.getAD();
+    threads = Math.max(1, Threads);
+    calTypeOut = CalTypeOut;
+    awips = Awips;
+    rawNative = RawNative;
+    nav = Nav;
+    window = new ImageWindow(ad);
+  }
+
+  /**
+   *
+   * convert only the lines and elements in a window; the sensor data
+   * must have the same window set
+   *
+   * @param w           ImageWindow object
+   *
+   */
+
+  public void setWindow(ImageWindow w)
+
+  {
+    window = w;
+  }
+
+  /**
+   *
+   * time the stages of every block
+   *
+   * @param s           ConversionStats object, or null for none
+   *
+   */
+
+  public void setStats(ConversionStats s)
+
+  {
+    stats = s;
+  }
+
+  /**
+   *
+   * partitioned: read each range up to Depth lines ahead, as
+   * SensorData.setReadAhead does for the whole image
+   *
+   * @param Depth       lines to keep ahead, 0 for none
+   *
+   */
+
+  public void setReadAhead(int Depth)
+
+  {
+    readAhead = Depth;
+  }
+
+  /**
+   *
+   * store the image and/or lats/lons as packed shorts; see
+   * LineBlock.setPacking
+   *
+   * @param Image       true to pack calibrated image values
+   * @param LatLon      true to pack lats/lons
+   *
+   */
+
+  public void setPacking(boolean Image, boolean LatLon)
+
+  {
+    packImage = Image;
+    packLatLon = LatLon;
+  }
+
+  /**
+   *
+   * convert all lines of the image, or of the window
+   *
+   * @param ct          CalibrationTable object, null for native raw
+   * @param ln          LineNavigator (interpolation grid or cached
+   *                    lats/lons), or null to navigate exactly
+   * @param cacheOut    navigation cache entry to fill, or null
+   * @param dataV       image variable
+   * @param latsV       lats variable
+   * @param lonsV       lons variable
+   * @param pb          progress output
+   *
+   */
+
+  public void run (
+    final CalibrationTable ct,
+    final LineNavigator ln,
+    NavCache.Entry cacheOut,
+    SlabWriter.Var dataV,
+    SlabWriter.Var latsV,
+    SlabWriter.Var lonsV,
+    ProgressBar pb
+  )
+    throws Exception
+
+  {
+    final int numLines = window.getNumLines();
+    final int depth = 2 * threads;
+    final SensorData sd = si.getSD();
+    int numBlocks = (numLines + BLOCK_LINES - 1) / BLOCK_LINES;
+
+    // blocks not in use, and finished (or failed) blocks in line order
+    final BlockingQueue<LineBlock> free =
+      new ArrayBlockingQueue<LineBlock>(depth);
+    final BlockingQueue<Future<LineBlock>> done =
+      new ArrayBlockingQueue<Future<LineBlock>>(depth);
+    for (int i = 0; i < depth; i++) {
+      LineBlock b =
+        new LineBlock(ad, BLOCK_LINES, calTypeOut, awips, rawNative, nav);
+      b.setPacking(packImage, packLatLon);
+      b.setWindow(window);
+      b.setStats(stats);
+      free.add(b);
+    }
+
+    // navigators keep working state, so each worker gets its own
+    final ThreadLocal<Navigator> navs = new ThreadLocal<Navigator>() {
+      protected Navigator initialValue() {
+        try {
+          return si.makeNavigator(false);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+
+    final ExecutorService workers =
+      Executors.newFixedThreadPool(threads, daemonThreads("aton-worker"));
+    ExecutorService reader =
+      Executors.newSingleThreadExecutor(daemonThreads("aton-reader"));
+
+    reader.submit(new Runnable() {
+      public void run() {
+        try {
+          for (int first = 0; first < numLines; first += BLOCK_LINES) {
+            final LineBlock b = free.take();
+            b.setLines(first, Math.min(BLOCK_LINES, numLines - first));
+            b.read(sd);
+            done.put(workers.submit(new Callable<LineBlock>() {
+              public LineBlock call() throws IOException {
+                b.calibrate(ct);
+                if (ln != null) {
+                  b.navigate(ln);
+                } else {
+                  b.navigate(navs.get());
+                }
+                return b;
+              }
+            }));
+          }
+        } catch (InterruptedException e) {
+          // writer gave up
+        } catch (final Throwable t) {
+          // hand the failure, errors too, to the writer in place of
+          // the next block, or it waits for that block forever
+          FutureTask<LineBlock> f = new FutureTask<LineBlock>(
+            new Callable<LineBlock>() {
+              public LineBlock call() throws Exception {
+                if (t instanceof Error) {
+                  throw (Error) t;
+                }
+                throw (Exception) t;
+              }
+            });
+          f.run();
+          try {
+            done.put(f);
+          } catch (InterruptedException ie) {
+            // writer gave up
+          }
+        }
+      }
+    });
+
+    try {
+      for (int i = 0; i < numBlocks; i++) {
+        LineBlock b;
+        try {
+          b = done.take().get();
+        } catch (ExecutionException e) {
+          Throwable t = e.getCause();
+          if (t instanceof Exception) {
+            throw (Exception) t;
+          }
+          if (t instanceof Error) {
+            throw (Error) t;
+          }
+          throw e;
+        }
+        b.write(dataV, latsV, lonsV);
+        if (cacheOut != null) {
+          cacheOut.put(b.getFirst(), b.getLats(), b.getLons());
+        }
+        pb.lines(b.getCount());
+        free.put(b);
+      }
+    } finally {
+      // the caller closes the input and output next, so the reader
+      // and workers must be done with them
+      stop(reader);
+      stop(workers);
+    }
+  }
+
+  /**
+   *
+   * convert all lines of the image, or of the window, partitioned;
+   * the image must be a mapped file.  Arguments are as for run.
+   *
+   */
+
+  public void runPartitioned (
+    final CalibrationTable ct,
+    final LineNavigator ln,
+    final NavCache.Entry cacheOut,
+    final SlabWriter.Var dataV,
+    final SlabWriter.Var latsV,
+    final SlabWriter.Var lonsV,
+    final ProgressBar pb
+  )
+    throws Exception
+
+  {
+    final MappedAreaFile maf = si.getMAF();
+    if (maf == null) {
+      throw new IOException("partitioned conversion needs a mapped area file");
+    }
+    final int numLines = window.getNumLines();
+    int ranges = RANGES_PER_THREAD * threads;
+    final int rangeLines =
+      Math.max(BLOCK_LINES, (numLines + ranges - 1) / ranges);
+    final int numRanges = (numLines + rangeLines - 1) / rangeLines;
+    final AtomicInteger next = new AtomicInteger(0);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+
+    ExecutorService workers =
+      Executors.newFixedThreadPool(threads, daemonThreads("aton-part"));
+    List<Future<Void>> parts = new ArrayList<Future<Void>>();
+    for (int i = 0; i < threads; i++) {
+      parts.add(workers.submit(new Callable<Void>() {
+        public Void call() throws Exception {
+          try {
+            LineBlock b =
+              new LineBlock(ad, BLOCK_LINES, calTypeOut, awips, rawNative, nav);
+            b.setPacking(packImage, packLatLon);
+            b.setWindow(window);
+            b.setStats(stats);
+            Navigator n = (ln == null) ? si.makeNavigator(false) : null;
+
+            int r;
+            while ((r = next.getAndIncrement()) < numRanges) {
+              int first = r * rangeLines;
+              int last = Math.min(first + rangeLines, numLines);
+              SensorData sd = new SensorData(maf, ad);
+              sd.setWindow(window.getLines(first, last - first));
+              sd.setReadAhead(readAhead);
+              try {
+                for (int f = first; f < last; f += BLOCK_LINES) {
+                  if (failed.get()) {
+                    return null;
+                  }
+                  b.setLines(f, Math.min(BLOCK_LINES, last - f));
+                  b.read(sd);
+                  b.calibrate(ct);
+                  if (ln != null) {
+                    b.navigate(ln);
+                  } else {
+                    b.navigate(n);
+                  }
+                  b.write(dataV, latsV, lonsV);
+                  if (cacheOut != null) {
+                    cacheOut.put(b.getFirst(), b.getLats(), b.getLons());
+                  }
+                  pb.lines(b.getCount());
+                }
+              } finally {
+                sd.stopReadAhead();
+              }
+            }
+            return null;
+          } catch (Throwable t) {
+            // the others stop at their next block
+            failed.set(true);
+            throw t;
+          }
+        }
+      }));
+    }
+
+    try {
+      for (Future<Void> f : parts) {
+        try {
+          f.get();
+        } catch (ExecutionException e) {
+          Throwable t = e.getCause();
+          if (t instanceof Exception) {
+            throw (Exception) t;
+          }
+          throw e;
+        }
+      }
+    } finally {
+      // the caller closes the file next, so no worker may still be
+      // writing to it
+      stop(workers);
+    }
+  }
+
+  /**
+   *
+   * interrupt a pool's threads and wait for them to finish
+   *
+   */
+
+  private static void stop(ExecutorService pool)
+
+  {
+    pool.shutdownNow();
+    try {
+      if (!pool.awaitTermination(STOP_WAIT_SECONDS, TimeUnit.SECONDS)) {
+        System.out.println("conversion threads didn't stop");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   *
+   * thread factory for named daemon threads, so a failed conversion
+   * never keeps the JVM alive
+   *
+   */
+
+  private static ThreadFactory daemonThreads(final String name)
+
+  {
+    return new ThreadFactory() {
+      private int num = 0;
+      public synchronized Thread newThread(Runnable r) {
+        Thread t = new Thread(r, name + "-" + (num++));
+        t.setDaemon(true);
+        return t;
+      }
+    };
+  }
+
+}
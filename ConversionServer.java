@@ -0,0 +1,359 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * ConversionServer converts AREA files over HTTP, so local tools can
+ * get NetCDF without spawning a JVM per file.  Requests go to
+ * /convert:
+ *
+ *   POST /convert?opt=-CTEMP&opt=-CF      AREA bytes in the body
+ *   GET  /convert?path=/data/x.area&opt=-NOLL
+ *
+ * Each opt is one command line option; -C<type>, -NOLL, -AWIPS, -CF
+ * and -NAVINTERP<km> are accepted.  The NetCDF file comes back as
+ * the response body.  The legacy NetCDF writer and ScienceImage both
+ * work on files, so an uploaded image and its NetCDF go through temp
+ * files that are removed as soon as the response is sent.
+ *
+ * At most -MAXJOBS<n> conversions run at once; a request that can't
+ * start within QUEUE_SECONDS gets 503.  The slot is taken before an
+ * upload is read, so the limit bounds temp disk and I/O too, and a
+ * refused upload is never read.  An upload larger than
+ * -MAXUPLOAD<MB> gets 413, unread if its Content-Length says so.
+ * Responses carry the time spent waiting, receiving and converting,
+ * in ms, in the headers X-Aton-Queue-Ms, X-Aton-Receive-Ms and
+ * X-Aton-Convert-Ms.
+ *
+ * The server listens on the loopback interface only.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ConversionServer implements HttpHandler {
+
+  private static final int QUEUE_SECONDS = 30;
+
+  // largest upload taken by default, MB
+  private static final long MAX_UPLOAD_MB = 2048;
+
+  // options a request may pass on; the command line parser matches
+  // options anywhere in an argument, so these have to match exactly
+  private static final String [] ALLOWED = {
+    "-CRAD", "-CTEMP", "-CBRIT", "-CALB", "-CRAW", "-CF", "-NOLL", "-AWIPS"
+  };
+
+  private Semaphore slots;
+  private long maxUpload;
+
+  /**
+   *
+   * run the server from the command line; returns only on error
+   *
+   * @param args        -SERVE<port> first, then -MAXJOBS<n> and
+   *                    -MAXUPLOAD<MB>
+   *
+   * @return            exit status
+   *
+   */
+
+  public static int run(String [] args)
+
+  {
+    int port = 8080;
+    int maxJobs = Runtime.getRuntime().availableProcessors();
+    long maxUploadMB = MAX_UPLOAD_MB;
+    try {
+      port = Integer.parseInt(args[0].substring(6));
+    } catch (NumberFormatException e) {
+      // keep the default port
+    }
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].indexOf("-MAXJOBS") >= 0) {
+        try {
+          maxJobs = Math.max(1, Integer.parseInt(args[i].substring(8)));
+        } catch (NumberFormatException e) {
+          // keep the default
+        }
+      }
+      if (args[i].indexOf("-MAXUPLOAD") >= 0) {
+        try {
+          maxUploadMB = Math.max(1, Long.parseLong(args[i].substring(10)));
+        } catch (NumberFormatException e) {
+          // keep the default
+        }
+      }
+    }
+
+    try {
+      HttpServer server = HttpServer.create(
+        new InetSocketAddress("127.0.0.1", port), 0);
+      server.createContext("/convert",
+        new ConversionServer(maxJobs, maxUploadMB << 20));
+      // room for the running jobs plus the ones waiting for a slot
+      server.setExecutor(Executors.newFixedThreadPool(4 * maxJobs));
+      server.start();
+      System.out.println("serve: listening on 127.0.0.1:" + port + ", " +
+        maxJobs + " jobs at a time");
+    } catch (IOException e) {
+      System.out.println("serve: " + e);
+      return 1;
+    }
+
+    // the server threads keep the JVM alive
+    while (true) {
+      try {
+        Thread.sleep(Long.MAX_VALUE);
+      } catch (InterruptedException e) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   *
+   * constructor
+   *
+   * @param MaxJobs     most conversions to run at the same time
+   * @param MaxUpload   largest upload taken, bytes
+   *
+   */
+
+  public ConversionServer(int MaxJobs, long MaxUpload)
+
+  {
+    slots = new Semaphore(MaxJobs, true);
+    maxUpload = MaxUpload;
+  }
+
+  /**
+   *
+   * handle one request
+   *
+   */
+
+  public void handle(HttpExchange ex)
+    throws IOException
+
+  {
+    long t0 = System.currentTimeMillis();
+    File in = null;
+    File out = null;
+    boolean haveSlot = false;
+
+    try {
+      String method = ex.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("POST")) {
+        reply(ex, 405, "use GET or POST");
+        return;
+      }
+
+      // query: path=<file> and any number of opt=<option>
+      String path = null;
+      List<String> opts = new ArrayList<String>();
+      String query = ex.getRequestURI().getRawQuery();
+      if (query != null) {
+        String [] params = query.split("&");
+        for (int i = 0; i < params.length; i++) {
+          int eq = params[i].indexOf('=');
+          if (eq < 0) {
+            continue;
+          }
+          String name = params[i].substring(0, eq);
+          String value = URLDecoder.decode(params[i].substring(eq + 1), "UTF-8");
+          if (name.equals("path")) {
+            path = value;
+          } else if (name.equals("opt")) {
+            if (!allowed(value)) {
+              reply(ex, 400, "option not allowed: " + value);
+              return;
+            }
+            opts.add(value);
+          }
+        }
+      }
+
+      // the image: a local file, or the request body
+      String inName;
+      if (path != null) {
+        if (!new File(path).isFile()) {
+          reply(ex, 404, "no such file: " + path);
+          return;
+        }
+        inName = path;
+      } else if (method.equals("POST")) {
+        inName = null;
+        String cl = ex.getRequestHeaders().getFirst("Content-Length");
+        if (cl != null) {
+          try {
+            if (Long.parseLong(cl.trim()) > maxUpload) {
+              reply(ex, 413, "larger than " + (maxUpload >> 20) + " MB");
+              return;
+            }
+          } catch (NumberFormatException e) {
+            reply(ex, 400, "bad Content-Length: " + cl);
+            return;
+          }
+        }
+      } else {
+        reply(ex, 400, "POST the AREA file, or give path=<file>");
+        return;
+      }
+
+      // take a slot before reading any upload, so waiting and
+      // refused requests cost no disk or I/O
+      if (!slots.tryAcquire(QUEUE_SECONDS, TimeUnit.SECONDS)) {
+        ex.getResponseHeaders().set("Retry-After", "" + QUEUE_SECONDS);
+        reply(ex, 503, "too busy");
+        return;
+      }
+      haveSlot = true;
+      long t1 = System.currentTimeMillis();
+
+      if (inName == null) {
+        in = File.createTempFile("aton", ".area");
+        if (!receive(ex.getRequestBody(), in, maxUpload)) {
+          reply(ex, 413, "larger than " + (maxUpload >> 20) + " MB");
+          return;
+        }
+        inName = in.getPath();
+      }
+      long t2 = System.currentTimeMillis();
+
+      out = File.createTempFile("aton", ".nc");
+      String [] args = new String[opts.size() + 3];
+      args[0] = inName;
+      args[1] = out.getPath();
+      for (int i = 0; i < opts.size(); i++) {
+        args[i + 2] = opts.get(i);
+      }
+      args[args.length - 1] = "-Q";
+      boolean ok = new AreaToNetCDF(args).isConverted();
+
+      slots.release();
+      haveSlot = false;
+      long t3 = System.currentTimeMillis();
+
+      Headers h = ex.getResponseHeaders();
+      h.set("X-Aton-Queue-Ms", "" + (t1 - t0));
+      h.set("X-Aton-Receive-Ms", "" + (t2 - t1));
+      h.set("X-Aton-Convert-Ms", "" + (t3 - t2));
+      if (!ok) {
+        reply(ex, 422, "conversion failed");
+        return;
+      }
+
+      h.set("Content-Type", "application/x-netcdf");
+      // a length of 0 would mean chunked here; -1 means no body
+      long len = out.length();
+      ex.sendResponseHeaders(200, (len == 0) ? -1 : len);
+      OutputStream os = ex.getResponseBody();
+      try {
+        Files.copy(out.toPath(), os);
+      } finally {
+        os.close();
+      }
+
+    } catch (Exception e) {
+      System.out.println("serve: " + e);
+      try {
+        reply(ex, 500, e.toString());
+      } catch (IOException ie) {
+        // headers already sent; the client sees a short body
+      }
+    } finally {
+      if (haveSlot) {
+        slots.release();
+      }
+      if (in != null) {
+        in.delete();
+      }
+      if (out != null) {
+        out.delete();
+      }
+      ex.close();
+    }
+  }
+
+  /**
+   *
+   * copy a request body to a file, stopping once it passes Max
+   * bytes, as a body without a Content-Length may
+   *
+   * @return            false if the body was too large
+   *
+   */
+
+  private static boolean receive(InputStream is, File f, long Max)
+    throws IOException
+
+  {
+    byte [] buf = new byte[65536];
+    long total = 0;
+    OutputStream os = new FileOutputStream(f);
+    try {
+      int n;
+      while ((n = is.read(buf)) > 0) {
+        total += n;
+        if (total > Max) {
+          return false;
+        }
+        os.write(buf, 0, n);
+      }
+    } finally {
+      os.close();
+      is.close();
+    }
+    return true;
+  }
+
+  /**
+   *
+   * return true if a request may pass this option on
+   *
+   */
+
+  private static boolean allowed(String opt)
+
+  {
+    for (int i = 0; i < ALLOWED.length; i++) {
+      if (opt.equals(ALLOWED[i])) {
+        return true;
+      }
+    }
+    return opt.matches("-NAVINTERP[0-9.]*");
+  }
+
+  /**
+   *
+   * send a short text reply
+   *
+   */
+
+  private static void reply(HttpExchange ex, int code, String msg)
+    throws IOException
+
+  {
+    byte [] b = (msg + "\n").getBytes("UTF-8");
+    ex.getResponseHeaders().set("Content-Type", "text/plain");
+    ex.sendResponseHeaders(code, b.length);
+    OutputStream os = ex.getResponseBody();
+    os.write(b);
+    os.close();
+  }
+
+}
@@ -0,0 +1,526 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ConversionStats times the stages of a conversion: parsing the
+ * area header and nav/cal blocks, decoding lines, calibration,
+ * navigation, writing image lines, writing lats/lons and closing the
+ * file.  It keeps each stage's total time and allocations, and the
+ * time per line of every block, for percentiles; -STATS writes them
+ * out as JSON at the end of the conversion.
+ *
+ * While a flight recording is running, every stage of every block is
+ * also a JDK Flight Recorder event, AreaToNetCDF.Stage, with the
+ * stage, file, first line, line count and bytes.  The event type is
+ * made through jdk.jfr.EventFactory by reflection, so the converter
+ * still builds and runs on JVMs without JFR; there the events are
+ * simply not made.
+ *
+ * The totals so far also feed the conversion's JMX stage times (see
+ * ConversionMonitor), with -STAGES when there is no report to write.
+ *
+ * With neither -STATS, -STAGES nor a recording there is no ConversionStats
+ * at all, and the cost is a null check per block and stage.  Stages
+ * may be timed on several threads at once; each thread has its own
+ * clock, and only the totals are shared.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ConversionStats {
+
+  public static final int PARSE = 0;
+  public static final int DECODE = 1;
+  public static final int CALIBRATE = 2;
+  public static final int NAVIGATE = 3;
+  public static final int IMAGE_WRITE = 4;
+  public static final int LATLON_WRITE = 5;
+  public static final int CLOSE = 6;
+
+  public static final String [] STAGES = {
+    "parse", "decode", "calibrate", "navigate", "imageWrite", "latLonWrite", "close"
+  };
+
+  private static final double [] PERCENTILES = {50.0d, 90.0d, 99.0d};
+
+  private String fileName;
+  private Jfr jfr = null;
+  private com.sun.management.ThreadMXBean tmx = null;
+
+  private long wallStart;
+  private long gcStart;
+  private long gcMsStart;
+
+  private long [] totalNs = new long[STAGES.length];
+  private long [] alloc = new long[STAGES.length];
+  private long [] calls = new long[STAGES.length];
+  private long [] lines = new long[STAGES.length];
+  private long bytesRead = 0;
+
+  // time per line of each block, and its lines, by stage
+  private long [][] perLineNs = new long[STAGES.length][64];
+  private int [][] perLineCount = new int[STAGES.length][64];
+  private int [] samples = new int[STAGES.length];
+
+  // each thread's stage in progress
+  private ThreadLocal<Timer> timers = new ThreadLocal<Timer>() {
+    protected Timer initialValue() {
+      return new Timer();
+    }
+  };
+
+  /**
+   *
+   * Timer is the start of a thread's current stage
+   *
+   */
+
+  private static class Timer {
+    long t0;
+    long a0;
+    Object event;
+  }
+
+  /**
+   *
+   * return stats for a conversion, or null if nothing wants them
+   *
+   * @param Report      true if a -STATS report will be written, or
+   *                    -STAGES wants the stage times
+   * @param FileName    input file name, for the JFR events
+   *
+   */
+
+  public static ConversionStats create(boolean Report, String FileName)
+
+  {
+    Jfr j = Jfr.recording() ? Jfr.make() : null;
+    if (!Report && j == null) {
+      return null;
+    }
+    return new ConversionStats(FileName, j);
+  }
+
+  /**
+   *
+   * constructor
+   *
+   */
+
+  private ConversionStats(String FileName, Jfr Events)
+
+  {
+    fileName = FileName;
+    jfr = Events;
+    ThreadMXBean t = ManagementFactory.getThreadMXBean();
+    if (t instanceof com.sun.management.ThreadMXBean) {
+      tmx = (com.sun.management.ThreadMXBean) t;
+      try {
+        if (!tmx.isThreadAllocatedMemorySupported()) {
+          tmx = null;
+        } else if (!tmx.isThreadAllocatedMemoryEnabled()) {
+          tmx.setThreadAllocatedMemoryEnabled(true);
+        }
+      } catch (UnsupportedOperationException e) {
+        tmx = null;
+      }
+    }
+    wallStart = System.nanoTime();
+    long [] gc = gcTotals();
+    gcStart = gc[0];
+    gcMsStart = gc[1];
+  }
+
+  /**
+   *
+   * start timing a stage on this thread
+   *
+   */
+
+  public void start()
+
+  {
+    Timer tm = timers.get();
+    if (jfr != null) {
+      tm.event = jfr.begin();
+    }
+    tm.a0 = allocated();
+    tm.t0 = System.nanoTime();
+  }
+
+  /**
+   *
+   * finish timing this thread's stage
+   *
+   * @param Stage       stage, one of the constants
+   * @param First       first line, or -1 for whole file stages
+   * @param Count       number of lines, 0 for whole file stages
+   * @param Bytes       bytes read or written, 0 if none counted
+   *
+   */
+
+  public void stop(int Stage, int First, int Count, long Bytes)
+
+  {
+    long t1 = System.nanoTime();
+    Timer tm = timers.get();
+    long ns = t1 - tm.t0;
+    long a = allocated() - tm.a0;
+    if (tm.event != null) {
+      jfr.commit(tm.event, STAGES[Stage], fileName, First, Count, Bytes);
+      tm.event = null;
+    }
+
+    synchronized (this) {
+      totalNs[Stage] += ns;
+      alloc[Stage] += Math.max(0, a);
+      calls[Stage]++;
+      if (Stage == DECODE) {
+        bytesRead += Bytes;
+      }
+      if (Count > 0) {
+        lines[Stage] += Count;
+        int s = samples[Stage];
+        if (s == perLineNs[Stage].length) {
+          perLineNs[Stage] = Arrays.copyOf(perLineNs[Stage], 2 * s);
+          perLineCount[Stage] = Arrays.copyOf(perLineCount[Stage], 2 * s);
+        }
+        perLineNs[Stage][s] = ns / Count;
+        perLineCount[Stage][s] = Count;
+        samples[Stage] = s + 1;
+      }
+    }
+  }
+
+  /**
+   *
+   * return the time so far in each stage, ms, in STAGES order
+   *
+   */
+
+  public synchronized double [] getStageMillis()
+
+  {
+    double [] ms = new double[STAGES.length];
+    for (int s = 0; s < STAGES.length; s++) {
+      ms[s] = totalNs[s] / 1.0e6d;
+    }
+    return ms;
+  }
+
+  /**
+   *
+   * return bytes this thread has allocated, or 0 if the JVM can't say
+   *
+   */
+
+  private long allocated()
+
+  {
+    return (tmx != null) ? tmx.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+  }
+
+  /**
+   *
+   * return collections and collection ms so far, all collectors
+   *
+   */
+
+  private static long [] gcTotals()
+
+  {
+    long [] t = new long[2];
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      t[0] += Math.max(0, gc.getCollectionCount());
+      t[1] += Math.max(0, gc.getCollectionTime());
+    }
+    return t;
+  }
+
+  /**
+   *
+   * return the nanoseconds per line at a percentile of a stage's
+   * lines
+   *
+   */
+
+  private long percentile(int Stage, final long [] ns, int [] count, double Pct)
+
+  {
+    int n = samples[Stage];
+    Integer [] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        return (ns[a] < ns[b]) ? -1 : (ns[a] > ns[b]) ? 1 : 0;
+      }
+    });
+    long want = (long) Math.ceil(Pct / 100.0d * lines[Stage]);
+    long seen = 0;
+    for (int i = 0; i < n; i++) {
+      seen += count[order[i]];
+      if (seen >= want) {
+        return ns[order[i]];
+      }
+    }
+    return (n > 0) ? ns[order[n - 1]] : 0L;
+  }
+
+  /**
+   *
+   * write the report as JSON
+   *
+   * @param Report      file to write
+   * @param OutName     NetCDF file written
+   * @param Converted   true if the conversion finished
+   *
+   */
+
+  public synchronized void write(String Report, String OutName, boolean Converted)
+    throws IOException
+
+  {
+    double wallMs = (System.nanoTime() - wallStart) / 1.0e6d;
+    long [] gc = gcTotals();
+    long totalAlloc = 0;
+    for (int s = 0; s < STAGES.length; s++) {
+      totalAlloc += alloc[s];
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n");
+    sb.append("  \"input\": ").append(quote(fileName)).append(",\n");
+    sb.append("  \"output\": ").append(quote(OutName)).append(",\n");
+    sb.append("  \"converted\": ").append(Converted).append(",\n");
+    sb.append("  \"wallMs\": ").append(wallMs).append(",\n");
+    sb.append("  \"bytesRead\": ").append(bytesRead).append(",\n");
+    sb.append("  \"bytesWritten\": ").append(new File(OutName).length()).append(",\n");
+    sb.append("  \"allocBytes\": ").append(tmx != null ? totalAlloc : -1).append(",\n");
+    sb.append("  \"gcCollections\": ").append(gc[0] - gcStart).append(",\n");
+    sb.append("  \"gcMs\": ").append(gc[1] - gcMsStart).append(",\n");
+    sb.append("  \"jfrEvents\": ").append(jfr != null).append(",\n");
+    sb.append("  \"stages\": {");
+    for (int s = 0; s < STAGES.length; s++) {
+      sb.append(s == 0 ? "\n" : ",\n");
+      sb.append("    ").append(quote(STAGES[s])).append(": {");
+      sb.append("\"calls\": ").append(calls[s]);
+      sb.append(", \"lines\": ").append(lines[s]);
+      sb.append(", \"totalMs\": ").append(totalNs[s] / 1.0e6d);
+      sb.append(", \"allocBytes\": ").append(tmx != null ? alloc[s] : -1);
+      if (samples[s] > 0) {
+        sb.append(", \"perLineUs\": {");
+        for (int p = 0; p < PERCENTILES.length; p++) {
+          sb.append("\"p").append((int) PERCENTILES[p]).append("\": ");
+          sb.append(percentile(s, perLineNs[s], perLineCount[s], PERCENTILES[p]) / 1.0e3d);
+          sb.append(", ");
+        }
+        sb.append("\"max\": ");
+        sb.append(percentile(s, perLineNs[s], perLineCount[s], 100.0d) / 1.0e3d);
+        sb.append("}");
+      }
+      sb.append("}");
+    }
+    sb.append("\n  }\n}\n");
+
+    Writer w = new OutputStreamWriter(new FileOutputStream(Report), "UTF-8");
+    try {
+      w.write(sb.toString());
+    } finally {
+      w.close();
+    }
+  }
+
+  /**
+   *
+   * return a string as a JSON string
+   *
+   */
+
+  private static String quote(String s)
+
+  {
+    if (s == null) {
+      return "null";
+    }
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   *
+   * Jfr makes the AreaToNetCDF.Stage flight recorder events, through
+   * reflection so nothing here needs JFR to build.  If anything goes
+   * wrong with JFR the events stop and the conversion carries on.
+   * Every EventFactory defines a new event class and type, so one is
+   * made per JVM and shared by all conversions.
+   *
+   */
+
+  private static class Jfr {
+
+    private static Jfr shared = null;
+    private static boolean tried = false;
+
+    private Object factory;
+    private Method newEvent;
+    private Method set;
+    private Method begin;
+    private Method end;
+    private Method shouldCommit;
+    private Method commit;
+    private volatile boolean broken = false;
+
+    /**
+     *
+     * return true if a flight recording is running
+     *
+     */
+
+    static boolean recording()
+
+    {
+      try {
+        Class<?> fr = Class.forName("jdk.jfr.FlightRecorder");
+        if (!((Boolean) fr.getMethod("isInitialized").invoke(null))) {
+          return false;
+        }
+        Object r = fr.getMethod("getFlightRecorder").invoke(null);
+        List<?> recs = (List<?>) fr.getMethod("getRecordings").invoke(r);
+        return !recs.isEmpty();
+      } catch (Exception e) {
+        return false;
+      } catch (LinkageError e) {
+        return false;
+      }
+    }
+
+    /**
+     *
+     * return the JVM's event maker, making it the first time, or null
+     * if it can't be made
+     *
+     */
+
+    static synchronized Jfr make()
+
+    {
+      if (!tried) {
+        tried = true;
+        try {
+          shared = new Jfr();
+        } catch (Exception e) {
+          System.out.println("no flight recorder events: " + e);
+        }
+      }
+      return shared;
+    }
+
+    private Jfr()
+      throws Exception
+
+    {
+      Class<?> ae = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> vd = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> ef = Class.forName("jdk.jfr.EventFactory");
+      Class<?> ev = Class.forName("jdk.jfr.Event");
+      Constructor<?> aeC = ae.getConstructor(Class.class, Object.class);
+      Constructor<?> vdC = vd.getConstructor(Class.class, String.class);
+
+      List<Object> annotations = new ArrayList<Object>();
+      annotations.add(aeC.newInstance(Class.forName("jdk.jfr.Name"), "AreaToNetCDF.Stage"));
+      annotations.add(aeC.newInstance(Class.forName("jdk.jfr.Label"), "Conversion Stage"));
+      annotations.add(aeC.newInstance(Class.forName("jdk.jfr.Category"),
+        new String [] {"AreaToNetCDF"}));
+      // the stack would be this class's reflection, of no use
+      annotations.add(aeC.newInstance(Class.forName("jdk.jfr.StackTrace"), Boolean.FALSE));
+
+      // field order is the index set() takes
+      List<Object> fields = new ArrayList<Object>();
+      fields.add(vdC.newInstance(String.class, "stage"));
+      fields.add(vdC.newInstance(String.class, "file"));
+      fields.add(vdC.newInstance(int.class, "firstLine"));
+      fields.add(vdC.newInstance(int.class, "lines"));
+      fields.add(vdC.newInstance(long.class, "bytes"));
+
+      factory = ef.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+      newEvent = ef.getMethod("newEvent");
+      set = ev.getMethod("set", int.class, Object.class);
+      begin = ev.getMethod("begin");
+      end = ev.getMethod("end");
+      shouldCommit = ev.getMethod("shouldCommit");
+      commit = ev.getMethod("commit");
+    }
+
+    /**
+     *
+     * return a new event, started, or null
+     *
+     */
+
+    Object begin()
+
+    {
+      if (broken) {
+        return null;
+      }
+      try {
+        Object e = newEvent.invoke(factory);
+        begin.invoke(e);
+        return e;
+      } catch (Exception ex) {
+        broken = true;
+        return null;
+      }
+    }
+
+    /**
+     *
+     * end an event and commit it, if the recording wants it
+     *
+     */
+
+    void commit(Object e, String Stage, String File, int First, int Count, long Bytes)
+
+    {
+      try {
+        end.invoke(e);
+        if ((Boolean) shouldCommit.invoke(e)) {
+          set.invoke(e, 0, Stage);
+          set.invoke(e, 1, File);
+          set.invoke(e, 2, First);
+          set.invoke(e, 3, Count);
+          set.invoke(e, 4, Bytes);
+          commit.invoke(e);
+        }
+      } catch (Exception ex) {
+        broken = true;
+      }
+    }
+
+  }
+
+}
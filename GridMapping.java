@@ -0,0 +1,414 @@
+import ucar.netcdf.Attribute;
+import ucar.netcdf.ProtoVariable;
+
+/**
+ * GridMapping describes a Lambert conformal, Mercator or polar
+ * stereographic image by a CF grid_mapping and 1-D x/y projection
+ * coordinates (meters on a sphere), in place of 2-D lat/lon arrays.
+ *
+ * The projection parameters come from the navigator: the Lambert
+ * conformal navigator knows its standard parallels and meridian; for
+ * polar stereographic the vertical meridian is found by navigating
+ * the pole and a point below it.  x is then taken from the image's
+ * center line and y from its center element, navigated exactly and
+ * projected.  That needs only one line and one column of navigation.
+ *
+ * Before the mapping is used, lat/lon rebuilt from x/y is checked
+ * against exact navigation on a grid of points spread over the image,
+ * corners included.  If any point is off by more than a quarter of a
+ * pixel (an ellipsoidal earth, say, or a grid that isn't what it
+ * claims to be), make returns null and lats/lons are written as
+ * before.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class GridMapping {
+
+  public static final String NAME = "crs";
+
+  private static final int LAMBERT = 1;
+  private static final int MERCATOR = 2;
+  private static final int STEREOGRAPHIC = 3;
+
+  // points checked along each image axis
+  private static final int CHECK_POINTS = 9;
+
+  private static final double D2R = Math.PI / 180.0d;
+  private static final double EARTH_RADIUS = 6371200.0d;
+
+  private int type;
+  private double radius = EARTH_RADIUS;
+  private double lon0;
+  private double lat0;
+  private double [] parallels = null;
+
+  // Lambert conformal constants
+  private double cone;
+  private double f;
+  private double rho0;
+
+  private double [] x;
+  private double [] y;
+  private double maxErrorKm = 0.0d;
+
+  /**
+   *
+   * make the grid mapping for an image, or return null if the image
+   * is not on one of these projections, or x/y don't reproduce its
+   * navigation
+   *
+   * @param n           Navigator object
+   * @param w           ImageWindow object, the part of the image written
+   *
+   */
+
+  public static GridMapping make (
+    Navigator n,
+    ImageWindow w
+  )
+
+  {
+    GridMapping gm = new GridMapping();
+    int nl = w.getNumLines();
+    int ne = w.getNumElems();
+
+    // center point, to pick hemisphere and meridian
+    double [] ll = new double[2];
+    navigate(n, w.toFileLine(nl / 2), w.toFileElem(ne / 2), ll);
+    if (Double.isNaN(ll[0])) {
+      return null;
+    }
+
+    if (n instanceof NavigatorLambertConformal) {
+      NavigatorLambertConformal lcn = (NavigatorLambertConformal) n;
+      gm.type = LAMBERT;
+      gm.parallels = lcn.getStandardParallels();
+      gm.lon0 = lcn.getCentralMeridian();
+      gm.lat0 = gm.parallels[0];
+      gm.radius = lcn.getRadius();
+      gm.setCone();
+    } else if (n instanceof NavigatorMercator) {
+      gm.type = MERCATOR;
+      gm.lon0 = ll[1];
+      gm.lat0 = 0.0d;
+    } else if (n instanceof NavigatorPolarStereographic) {
+      gm.type = STEREOGRAPHIC;
+      gm.lat0 = (ll[0] >= 0.0d) ? 90.0d : -90.0d;
+      // the vertical meridian runs straight down from the north pole,
+      // straight up from the south pole
+      double [] lines = new double[1];
+      double [] elems = new double[1];
+      n.toLinEle(new double[] {gm.lat0}, new double[] {0.0d}, 0, 1,
+        lines, elems);
+      double step = (gm.lat0 > 0.0d) ? nl : -nl;
+      navigate(n, lines[0] + step, elems[0], ll);
+      gm.lon0 = ll[1];
+    } else {
+      return null;
+    }
+
+    if (!gm.setCoordinates(n, w)) {
+      return null;
+    }
+    return gm;
+  }
+
+  /**
+   *
+   * navigate one file line/element
+   *
+   */
+
+  private static void navigate(Navigator n, double line, double elem, double [] ll)
+
+  {
+    double [] lat = new double[1];
+    double [] lon = new double[1];
+    n.toLatLon(new double[] {line}, new double[] {elem}, 0, 1, lat, lon);
+    ll[0] = lat[0];
+    ll[1] = lon[0];
+  }
+
+  /**
+   *
+   * Lambert conformal cone constant and scale, as in Snyder
+   *
+   */
+
+  private void setCone()
+
+  {
+    double p1 = parallels[0] * D2R;
+    double p2 = parallels[1] * D2R;
+    if (Math.abs(p1 - p2) < 1.0e-10) {
+      cone = Math.sin(p1);
+    } else {
+      cone = Math.log(Math.cos(p1) / Math.cos(p2)) /
+        Math.log(Math.tan(Math.PI / 4 + p2 / 2) / Math.tan(Math.PI / 4 + p1 / 2));
+    }
+    f = Math.cos(p1) * Math.pow(Math.tan(Math.PI / 4 + p1 / 2), cone) / cone;
+    rho0 = radius * f / Math.pow(Math.tan(Math.PI / 4 + lat0 * D2R / 2), cone);
+  }
+
+  /**
+   *
+   * take x from the center line and y from the center element,
+   * then check the whole image; return false if it doesn't match
+   *
+   */
+
+  private boolean setCoordinates(Navigator n, ImageWindow w)
+
+  {
+    double [] xy = new double[2];
+    int nl = w.getNumLines();
+    int ne = w.getNumElems();
+    int lc = nl / 2;
+    int ec = ne / 2;
+
+    // x along the center line
+    double [] lines = new double[ne];
+    double [] elems = new double[ne];
+    double [] lats = new double[ne];
+    double [] lons = new double[ne];
+    for (int i = 0; i < ne; i++) {
+      lines[i] = w.toFileLine(lc);
+      elems[i] = w.toFileElem(i);
+    }
+    n.toLatLon(lines, elems, 0, ne, lats, lons);
+    x = new double[ne];
+    for (int i = 0; i < ne; i++) {
+      forward(lats[i], lons[i], xy);
+      x[i] = xy[0];
+    }
+    float dx = pixelKm(lats, lons, ec);
+
+    // y along the center element
+    lines = new double[nl];
+    elems = new double[nl];
+    lats = new double[nl];
+    lons = new double[nl];
+    for (int i = 0; i < nl; i++) {
+      lines[i] = w.toFileLine(i);
+      elems[i] = w.toFileElem(ec);
+    }
+    n.toLatLon(lines, elems, 0, nl, lats, lons);
+    y = new double[nl];
+    for (int i = 0; i < nl; i++) {
+      forward(lats[i], lons[i], xy);
+      y[i] = xy[1];
+    }
+    float dy = pixelKm(lats, lons, lc);
+
+    for (int i = 0; i < ne; i++) {
+      if (Double.isNaN(x[i])) {
+        return false;
+      }
+    }
+    for (int i = 0; i < nl; i++) {
+      if (Double.isNaN(y[i])) {
+        return false;
+      }
+    }
+
+    // check a grid of points over the whole image
+    int k = CHECK_POINTS;
+    int [] li = new int[k * k];
+    int [] ei = new int[k * k];
+    lines = new double[k * k];
+    elems = new double[k * k];
+    lats = new double[k * k];
+    lons = new double[k * k];
+    for (int i = 0; i < k; i++) {
+      for (int j = 0; j < k; j++) {
+        li[i * k + j] = (int) Math.round((double) i * (nl - 1) / (k - 1));
+        ei[i * k + j] = (int) Math.round((double) j * (ne - 1) / (k - 1));
+        lines[i * k + j] = w.toFileLine(li[i * k + j]);
+        elems[i * k + j] = w.toFileElem(ei[i * k + j]);
+      }
+    }
+    n.toLatLon(lines, elems, 0, k * k, lats, lons);
+
+    double [] ll = new double[2];
+    for (int i = 0; i < k * k; i++) {
+      inverse(x[ei[i]], y[li[i]], ll);
+      if (Double.isNaN(lats[i]) || Double.isNaN(ll[0])) {
+        return false;
+      }
+      float err = ConversionUtility.LatLonToDistance (
+        (float) lats[i], (float) lons[i], (float) ll[0], (float) ll[1]);
+      maxErrorKm = Math.max(maxErrorKm, err);
+    }
+    return maxErrorKm <= 0.25d * Math.min(dx, dy);
+  }
+
+  /**
+   *
+   * ground distance between a point and the next along a line or
+   * column of navigated points
+   *
+   */
+
+  private static float pixelKm(double [] lats, double [] lons, int i)
+
+  {
+    int j = (i + 1 < lats.length) ? i + 1 : i - 1;
+    if (j < 0) {
+      return Float.MAX_VALUE;
+    }
+    return ConversionUtility.LatLonToDistance (
+      (float) lats[i], (float) lons[i], (float) lats[j], (float) lons[j]);
+  }
+
+  /**
+   *
+   * lat/lon to x/y, meters
+   *
+   */
+
+  private void forward(double lat, double lon, double [] xy)
+
+  {
+    double phi = lat * D2R;
+    double dl = lon - lon0;
+    dl = ((dl + 540.0d) % 360.0d) - 180.0d;
+    dl *= D2R;
+
+    if (type == MERCATOR) {
+      xy[0] = radius * dl;
+      xy[1] = radius * Math.log(Math.tan(Math.PI / 4 + phi / 2));
+    } else if (type == STEREOGRAPHIC) {
+      if (lat0 > 0.0d) {
+        double rho = 2.0d * radius * Math.tan(Math.PI / 4 - phi / 2);
+        xy[0] = rho * Math.sin(dl);
+        xy[1] = -rho * Math.cos(dl);
+      } else {
+        double rho = 2.0d * radius * Math.tan(Math.PI / 4 + phi / 2);
+        xy[0] = rho * Math.sin(dl);
+        xy[1] = rho * Math.cos(dl);
+      }
+    } else {
+      double rho = radius * f / Math.pow(Math.tan(Math.PI / 4 + phi / 2), cone);
+      double theta = cone * dl;
+      xy[0] = rho * Math.sin(theta);
+      xy[1] = rho0 - rho * Math.cos(theta);
+    }
+  }
+
+  /**
+   *
+   * x/y, meters, to lat/lon, as a CF reader rebuilds them
+   *
+   */
+
+  void inverse(double px, double py, double [] ll)
+
+  {
+    double lat;
+    double dl;
+
+    if (type == MERCATOR) {
+      lat = Math.PI / 2 - 2.0d * Math.atan(Math.exp(-py / radius));
+      dl = px / radius;
+    } else if (type == STEREOGRAPHIC) {
+      double rho = Math.sqrt(px * px + py * py);
+      if (lat0 > 0.0d) {
+        lat = Math.PI / 2 - 2.0d * Math.atan(rho / (2.0d * radius));
+        dl = Math.atan2(px, -py);
+      } else {
+        lat = -Math.PI / 2 + 2.0d * Math.atan(rho / (2.0d * radius));
+        dl = Math.atan2(px, py);
+      }
+    } else {
+      double dy = rho0 - py;
+      double rho = Math.signum(cone) * Math.sqrt(px * px + dy * dy);
+      double theta = (cone > 0.0d) ?
+        Math.atan2(px, dy) : Math.atan2(-px, -dy);
+      lat = 2.0d * Math.atan(Math.pow(radius * f / rho, 1.0d / cone)) - Math.PI / 2;
+      dl = theta / cone;
+    }
+
+    double lon = lon0 + dl / D2R;
+    lon = ((lon + 540.0d) % 360.0d) - 180.0d;
+    ll[0] = lat / D2R;
+    ll[1] = lon;
+  }
+
+  /**
+   *
+   * return x coordinates, one per element, meters
+   *
+   */
+
+  public double[] getX() {
+    return x;
+  }
+
+  /**
+   *
+   * return y coordinates, one per line, meters
+   *
+   */
+
+  public double[] getY() {
+    return y;
+  }
+
+  /**
+   *
+   * return the largest lat/lon error found by the check, km
+   *
+   */
+
+  public double getMaxErrorKm() {
+    return maxErrorKm;
+  }
+
+  /**
+   *
+   * add the CF grid_mapping attributes to the grid mapping variable
+   *
+   */
+
+  public void putAttributes(ProtoVariable v)
+
+  {
+    if (type == LAMBERT) {
+      v.putAttribute(new Attribute("grid_mapping_name", "lambert_conformal_conic"));
+      v.putAttribute(new Attribute("standard_parallel", parallels));
+      v.putAttribute(new Attribute("longitude_of_central_meridian", lon0));
+      v.putAttribute(new Attribute("latitude_of_projection_origin", lat0));
+    } else if (type == MERCATOR) {
+      v.putAttribute(new Attribute("grid_mapping_name", "mercator"));
+      v.putAttribute(new Attribute("longitude_of_projection_origin", lon0));
+      v.putAttribute(new Attribute("scale_factor_at_projection_origin", 1.0d));
+    } else {
+      v.putAttribute(new Attribute("grid_mapping_name", "polar_stereographic"));
+      v.putAttribute(new Attribute("straight_vertical_longitude_from_pole", lon0));
+      v.putAttribute(new Attribute("latitude_of_projection_origin", lat0));
+      v.putAttribute(new Attribute("scale_factor_at_projection_origin", 1.0d));
+    }
+    v.putAttribute(new Attribute("false_easting", 0.0d));
+    v.putAttribute(new Attribute("false_northing", 0.0d));
+    v.putAttribute(new Attribute("earth_radius", radius));
+  }
+
+  /**
+   *
+   * add the attributes of the x or y coordinate variable
+   *
+   * @param v           the coordinate variable
+   * @param axis        "x" or "y"
+   *
+   */
+
+  public static void putCoordinateAttributes(ProtoVariable v, String axis)
+
+  {
+    v.putAttribute(new Attribute("standard_name", "projection_" + axis + "_coordinate"));
+    v.putAttribute(new Attribute("units", "m"));
+    v.putAttribute(new Attribute("axis", axis.toUpperCase()));
+  }
+
+}
@@ -0,0 +1,505 @@
+import java.util.Arrays;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * ImageWindow is the part of an image that gets converted: a run of
+ * lines and a run of elements, in 0 based file coordinates, and a
+ * set of bands.  It starts out as the whole image and can be cut down
+ * to a line range, an element range, a lat/lon box and/or some of
+ * the bands.  Everything past the reader
+ * works in window coordinates, line 0 and element 0 being the window's
+ * upper left corner; toFileLine and toFileElem convert back, for
+ * navigation.
+ *
+ * A window can also be reduced: only every n-th line and m-th element
+ * is kept, or each n x m block of pixels is averaged.  Window lines
+ * and elements then count reduced pixels.  An averaged pixel is
+ * navigated at the center of its block.
+ *
+ * A lat/lon box is mapped to lines/elements by navigating points along
+ * its edges, plus a grid of image points for any part of the box that
+ * runs off the earth's limb.  The window is the smallest one holding
+ * all of them, so it may take in a little more than the box.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ImageWindow {
+
+  // points navigated along each edge of a lat/lon box, and image
+  // points along each axis checked for being inside the box
+  private static final int EDGE_POINTS = 256;
+  private static final int GRID_POINTS = 128;
+
+  private int imageLines;
+  private int imageElems;
+  private int firstLine = 0;
+  private int numLines;
+  private int firstElem = 0;
+  private int numElems;
+  private int lineStep = 1;
+  private int elemStep = 1;
+  private boolean average = false;
+
+  // channel numbers of the window's bands, and their positions among
+  // the bands interleaved in the file
+  private int imageBands;
+  private int [] bandNums;
+  private int [] bandIdx;
+
+  /**
+   *
+   * constructor; the window is the whole image
+   *
+   * @param ad          AncillaryData object
+   *
+   */
+
+  public ImageWindow(AncillaryData ad)
+
+  {
+    imageLines = ad.getNumLines();
+    imageElems = ad.getNumElements();
+    numLines = imageLines;
+    numElems = imageElems;
+
+    imageBands = ad.getNumBands();
+    bandNums = new int[imageBands];
+    bandIdx = new int[imageBands];
+    int bandMap = ad.getBandMap();
+    int k = 0;
+    for (int i = 0; i < 32 && k < imageBands; i++) {
+      if (((bandMap >> i) & 0x0001) > 0) {
+        bandNums[k] = i + 1;
+        bandIdx[k] = k;
+        k++;
+      }
+    }
+  }
+
+  /**
+   *
+   * copy constructor
+   *
+   */
+
+  private ImageWindow(ImageWindow w)
+
+  {
+    imageLines = w.imageLines;
+    imageElems = w.imageElems;
+    firstLine = w.firstLine;
+    numLines = w.numLines;
+    firstElem = w.firstElem;
+    numElems = w.numElems;
+    lineStep = w.lineStep;
+    elemStep = w.elemStep;
+    average = w.average;
+    imageBands = w.imageBands;
+    bandNums = w.bandNums;
+    bandIdx = w.bandIdx;
+  }
+
+  /**
+   *
+   * return a window of Count of this window's lines, starting at
+   * window line First, with the same elements, reduction and bands.
+   * Its line 0 is line First here.
+   *
+   */
+
+  public ImageWindow getLines(int First, int Count)
+
+  {
+    ImageWindow w = new ImageWindow(this);
+    int skip = First * lineStep;
+    w.firstLine = firstLine + skip;
+    w.numLines = Math.max(0, Math.min(Count * lineStep, numLines - skip));
+    return w;
+  }
+
+  /**
+   *
+   * keep only lines First through Last, inclusive, clipped to the
+   * image; return false if no line is left
+   *
+   */
+
+  public boolean setLines(int First, int Last)
+
+  {
+    int first = Math.max(First, firstLine);
+    int last = Math.min(Last, firstLine + numLines - 1);
+    firstLine = first;
+    numLines = Math.max(0, last - first + 1);
+    return numLines > 0;
+  }
+
+  /**
+   *
+   * keep only elements First through Last, inclusive, clipped to the
+   * image; return false if no element is left
+   *
+   */
+
+  public boolean setElems(int First, int Last)
+
+  {
+    int first = Math.max(First, firstElem);
+    int last = Math.min(Last, firstElem + numElems - 1);
+    firstElem = first;
+    numElems = Math.max(0, last - first + 1);
+    return numElems > 0;
+  }
+
+  /**
+   *
+   * keep only some bands, in file order; return false if a channel
+   * isn't in the image
+   *
+   * @param Channels    channel numbers, as in the band map
+   *
+   */
+
+  public boolean setBands(int [] Channels)
+
+  {
+    boolean [] keep = new boolean[bandNums.length];
+    for (int j = 0; j < Channels.length; j++) {
+      boolean found = false;
+      for (int i = 0; i < bandNums.length; i++) {
+        if (Channels[j] == bandNums[i]) {
+          keep[i] = true;
+          found = true;
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+
+    int k = 0;
+    for (int i = 0; i < keep.length; i++) {
+      if (keep[i]) {
+        bandNums[k] = bandNums[i];
+        bandIdx[k] = bandIdx[i];
+        k++;
+      }
+    }
+    int [] nums = new int[k];
+    int [] idx = new int[k];
+    System.arraycopy(bandNums, 0, nums, 0, k);
+    System.arraycopy(bandIdx, 0, idx, 0, k);
+    bandNums = nums;
+    bandIdx = idx;
+    return k > 0;
+  }
+
+  /**
+   *
+   * keep only the lines and elements covering a lat/lon box; return
+   * false if the box isn't in the window
+   *
+   * @param n           Navigator object
+   * @param Lat1        one latitude edge of the box
+   * @param Lon1        west edge of the box
+   * @param Lat2        other latitude edge of the box
+   * @param Lon2        east edge; less than Lon1 if the box crosses
+   *                    the date line
+   *
+   */
+
+  public boolean setBox(Navigator n, float Lat1, float Lon1, float Lat2, float Lon2)
+
+  {
+    double south = Math.min(Lat1, Lat2);
+    double north = Math.max(Lat1, Lat2);
+    double west = Lon1;
+    double width = eastOf(Lon2, west);
+    if (width == 0.0d && Lon1 != Lon2) {
+      width = 360.0d;
+    }
+
+    double minLine = Double.MAX_VALUE;
+    double maxLine = -Double.MAX_VALUE;
+    double minElem = Double.MAX_VALUE;
+    double maxElem = -Double.MAX_VALUE;
+
+    // the box edges
+    int k = EDGE_POINTS;
+    double [] lats = new double[4 * k];
+    double [] lons = new double[4 * k];
+    for (int i = 0; i < k; i++) {
+      double f = (double) i / (k - 1);
+      lats[i] = south + f * (north - south);
+      lons[i] = west;
+      lats[k + i] = lats[i];
+      lons[k + i] = west + width;
+      lats[2 * k + i] = south;
+      lons[2 * k + i] = west + f * width;
+      lats[3 * k + i] = north;
+      lons[3 * k + i] = lons[2 * k + i];
+    }
+    for (int i = 0; i < lons.length; i++) {
+      if (lons[i] >= 180.0d) {
+        lons[i] -= 360.0d;
+      }
+    }
+    double [] lines = new double[4 * k];
+    double [] elems = new double[4 * k];
+    n.toLinEle(lats, lons, 0, lats.length, lines, elems);
+    for (int i = 0; i < lines.length; i++) {
+      if (Double.isNaN(lines[i]) || Double.isNaN(elems[i]) ||
+          Double.isInfinite(lines[i]) || Double.isInfinite(elems[i])) {
+        continue;
+      }
+      minLine = Math.min(minLine, lines[i]);
+      maxLine = Math.max(maxLine, lines[i]);
+      minElem = Math.min(minElem, elems[i]);
+      maxElem = Math.max(maxElem, elems[i]);
+    }
+
+    // image points inside the box, for edges that are off the earth
+    int lStep = Math.max(1, numLines / GRID_POINTS);
+    int eStep = Math.max(1, numElems / GRID_POINTS);
+    int nl = (numLines + lStep - 1) / lStep;
+    int ne = (numElems + eStep - 1) / eStep;
+    lines = new double[ne];
+    elems = new double[ne];
+    lats = new double[ne];
+    lons = new double[ne];
+    for (int j = 0; j < ne; j++) {
+      elems[j] = firstElem + j * eStep;
+    }
+    for (int i = 0; i < nl; i++) {
+      Arrays.fill(lines, firstLine + i * lStep);
+      n.toLatLon(lines, elems, 0, ne, lats, lons);
+      for (int j = 0; j < ne; j++) {
+        if (lats[j] >= south && lats[j] <= north &&
+            eastOf(lons[j], west) <= width) {
+          // a whole grid step around it, so nothing between grid
+          // points is lost
+          minLine = Math.min(minLine, lines[j] - lStep);
+          maxLine = Math.max(maxLine, lines[j] + lStep);
+          minElem = Math.min(minElem, elems[j] - eStep);
+          maxElem = Math.max(maxElem, elems[j] + eStep);
+        }
+      }
+    }
+
+    if (minLine > maxLine || minElem > maxElem) {
+      numLines = 0;
+      numElems = 0;
+      return false;
+    }
+    boolean l = setLines((int) Math.floor(minLine), (int) Math.ceil(maxLine));
+    boolean e = setElems((int) Math.floor(minElem), (int) Math.ceil(maxElem));
+    return l && e;
+  }
+
+  /**
+   *
+   * keep only every LineStep-th line and ElemStep-th element, or
+   * with Average, the average of each LineStep x ElemStep block.
+   * Set the line/element ranges and box first.
+   *
+   */
+
+  public void setReduce(int LineStep, int ElemStep, boolean Average)
+
+  {
+    lineStep = Math.max(1, LineStep);
+    elemStep = Math.max(1, ElemStep);
+    average = Average;
+  }
+
+  /**
+   *
+   * degrees east from one longitude to another, 0 up to 360
+   *
+   */
+
+  private static double eastOf(double lon, double from)
+
+  {
+    double d = (lon - from) % 360.0d;
+    return (d < 0.0d) ? d + 360.0d : d;
+  }
+
+  /**
+   *
+   * return true if the window is the whole image
+   *
+   */
+
+  public boolean isWholeImage() {
+    return numLines == imageLines && numElems == imageElems &&
+      lineStep == 1 && elemStep == 1 && bandNums.length == imageBands;
+  }
+
+  /**
+   *
+   * return first line of the window, in file coordinates
+   *
+   */
+
+  public int getFirstLine() {
+    return firstLine;
+  }
+
+  /**
+   *
+   * return number of lines in the window, after reduction
+   *
+   */
+
+  public int getNumLines() {
+    return (numLines + lineStep - 1) / lineStep;
+  }
+
+  /**
+   *
+   * return number of file lines the window spans
+   *
+   */
+
+  public int getLineSpan() {
+    return numLines;
+  }
+
+  /**
+   *
+   * return first element of the window, in file coordinates
+   *
+   */
+
+  public int getFirstElem() {
+    return firstElem;
+  }
+
+  /**
+   *
+   * return number of elements in the window, after reduction
+   *
+   */
+
+  public int getNumElems() {
+    return (numElems + elemStep - 1) / elemStep;
+  }
+
+  /**
+   *
+   * return number of file elements the window spans
+   *
+   */
+
+  public int getElemSpan() {
+    return numElems;
+  }
+
+  /**
+   *
+   * return file lines per window line
+   *
+   */
+
+  public int getLineStep() {
+    return lineStep;
+  }
+
+  /**
+   *
+   * return file elements per window element
+   *
+   */
+
+  public int getElemStep() {
+    return elemStep;
+  }
+
+  /**
+   *
+   * return true if blocks of pixels are averaged, false if sampled
+   *
+   */
+
+  public boolean isAveraged() {
+    return average;
+  }
+
+  /**
+   *
+   * return number of bands in the window
+   *
+   */
+
+  public int getNumBands() {
+    return bandNums.length;
+  }
+
+  /**
+   *
+   * return channel numbers of the window's bands
+   *
+   */
+
+  public int[] getBandNumbers() {
+    return bandNums;
+  }
+
+  /**
+   *
+   * return positions of the window's bands among the bands
+   * interleaved in the file
+   *
+   */
+
+  public int[] getBandIndexes() {
+    return bandIdx;
+  }
+
+  /**
+   *
+   * convert a window line to a file line
+   *
+   */
+
+  public double toFileLine(double line) {
+    double center = average ? (lineStep - 1) / 2.0d : 0.0d;
+    return firstLine + line * lineStep + center;
+  }
+
+  /**
+   *
+   * convert a window element to a file element
+   *
+   */
+
+  public double toFileElem(double elem) {
+    double center = average ? (elemStep - 1) / 2.0d : 0.0d;
+    return firstElem + elem * elemStep + center;
+  }
+
+  /**
+   *
+   * describe the window, for status output
+   *
+   */
+
+  public String toString() {
+    String str = "lines " + firstLine + "-" + (firstLine + numLines - 1) +
+      ", elements " + firstElem + "-" + (firstElem + numElems - 1);
+    if (lineStep > 1 || elemStep > 1) {
+      str += (average ? ", averaged " : ", sampled ") +
+        lineStep + "x" + elemStep;
+    }
+    if (bandNums.length < imageBands) {
+      str += ", bands";
+      for (int i = 0; i < bandNums.length; i++) {
+        str += (i == 0 ? " " : ",") + bandNums[i];
+      }
+    }
+    return str;
+  }
+
+}
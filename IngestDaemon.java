@@ -0,0 +1,315 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IngestDaemon watches spool directories and converts each AREA file
+ * dropped there, all in one long running JVM, so the JIT, the
+ * calibration tables and the navigation cache stay warm from file to
+ * file.
+ *
+ * A file is taken once its size and modification time have not
+ * changed for the settle time (-SETTLE<ms>, 2000 by default).  Files
+ * still being written under a temporary name, i.e. starting with '.'
+ * or ending in '.tmp', are left alone until renamed.  The daemon's
+ * own outputs, '.nc' files and the '.stats.json' reports of -STATS,
+ * which land in the spool when there is no -OUTDIR, are never taken.
+ * Files that are ready are converted newest first by a pool of workers
+ * (-WORKERS<n>), into -OUTDIR<dir> if given, otherwise next to the
+ * input.  Afterwards the input is moved to the 'done' or 'failed'
+ * subdirectory of its spool directory.  Other options are passed
+ * through to each conversion.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class IngestDaemon {
+
+  private List<Path> dirs = new ArrayList<Path>();
+  private List<String> options = new ArrayList<String>();
+  private File outDir = null;
+  private int workers = 1;
+  private long settleMillis = 2000;
+
+  // files seen but not yet settled, and files ready to convert
+  // or being converted
+  private Map<Path, Pending> waiting = new HashMap<Path, Pending>();
+  private Set<Path> taken =
+    Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+  private PriorityBlockingQueue<Pending> ready =
+    new PriorityBlockingQueue<Pending>(64, new Comparator<Pending>() {
+      public int compare(Pending a, Pending b) {
+        // newest first
+        return a.modified > b.modified ? -1 : (a.modified < b.modified ? 1 : 0);
+      }
+    });
+
+  /**
+   *
+   * run the daemon from the command line; returns only on error
+   *
+   * @param args        -WATCH<dir>[,<dir>...] first, then options
+   *
+   * @return            exit status
+   *
+   */
+
+  public static int run(String [] args)
+
+  {
+    try {
+      new IngestDaemon(args).watch();
+    } catch (Exception e) {
+      System.out.println("ingest: " + e);
+    }
+    return 1;
+  }
+
+  /**
+   *
+   * constructor; sets up the spool, done and failed directories
+   *
+   * @param args        -WATCH<dir>[,<dir>...] first, then options
+   *
+   */
+
+  public IngestDaemon(String [] args)
+    throws IOException
+
+  {
+    String [] names = args[0].substring(6).split(",");
+    for (int i = 0; i < names.length; i++) {
+      Path dir = new File(names[i]).toPath();
+      Files.createDirectories(dir.resolve("done"));
+      Files.createDirectories(dir.resolve("failed"));
+      dirs.add(dir);
+    }
+
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].indexOf("-WORKERS") >= 0) {
+        try {
+          workers = Math.max(1, Integer.parseInt(args[i].substring(8)));
+        } catch (NumberFormatException e) {
+          workers = Runtime.getRuntime().availableProcessors();
+        }
+      } else if (args[i].indexOf("-SETTLE") >= 0) {
+        try {
+          settleMillis = Long.parseLong(args[i].substring(7));
+        } catch (NumberFormatException e) {
+          // keep the default
+        }
+      } else if (args[i].indexOf("-OUTDIR") >= 0) {
+        outDir = new File(args[i].substring(7));
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+          throw new IOException("can't create output directory " + outDir);
+        }
+      } else {
+        options.add(args[i]);
+      }
+    }
+    if (workers > 1 && !options.contains("-Q")) {
+      options.add("-Q");
+    }
+  }
+
+  /**
+   *
+   * start the workers and watch the directories, forever
+   *
+   */
+
+  public void watch()
+    throws IOException, InterruptedException
+
+  {
+    WatchService ws = FileSystems.getDefault().newWatchService();
+    Map<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
+    for (int i = 0; i < dirs.size(); i++) {
+      Path dir = dirs.get(i);
+      keys.put(dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY), dir);
+      // files already there when we start
+      scan(dir);
+    }
+
+    for (int i = 0; i < workers; i++) {
+      Thread t = new Thread(new Runnable() {
+        public void run() {
+          work();
+        }
+      }, "aton-ingest-" + i);
+      t.start();
+    }
+
+    System.out.println("ingest: watching " + dirs + ", " + workers +
+      " workers");
+
+    // check on waiting files twice per settle time
+    long tick = Math.max(10, settleMillis / 2);
+    while (true) {
+      WatchKey key = ws.poll(tick, TimeUnit.MILLISECONDS);
+      if (key != null) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> ev : key.pollEvents()) {
+          if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+            scan(dir);
+          } else {
+            seen(dir.resolve((Path) ev.context()));
+          }
+        }
+        if (!key.reset()) {
+          throw new IOException("spool directory went away: " + dir);
+        }
+      }
+      settle();
+    }
+  }
+
+  /**
+   *
+   * note every file in a directory
+   *
+   */
+
+  private void scan(Path dir)
+    throws IOException
+
+  {
+    DirectoryStream<Path> ds = Files.newDirectoryStream(dir);
+    try {
+      for (Path p : ds) {
+        seen(p);
+      }
+    } finally {
+      ds.close();
+    }
+  }
+
+  /**
+   *
+   * note a new or changed file, unless it is not one of ours
+   *
+   */
+
+  private void seen(Path p)
+
+  {
+    String name = p.getFileName().toString();
+    if (name.startsWith(".") || name.endsWith(".tmp") ||
+        name.endsWith(".nc") || name.endsWith(".stats.json") ||
+        taken.contains(p) || !Files.isRegularFile(p)) {
+      return;
+    }
+    if (!waiting.containsKey(p)) {
+      waiting.put(p, new Pending(p));
+    }
+  }
+
+  /**
+   *
+   * hand files that have stopped changing to the workers
+   *
+   */
+
+  private void settle()
+
+  {
+    long now = System.currentTimeMillis();
+    Iterator<Pending> it = waiting.values().iterator();
+    while (it.hasNext()) {
+      Pending f = it.next();
+      File file = f.path.toFile();
+      if (!file.isFile()) {
+        // renamed or removed before it settled
+        it.remove();
+        continue;
+      }
+      long size = file.length();
+      long modified = file.lastModified();
+      if (size != f.size || modified != f.modified) {
+        f.size = size;
+        f.modified = modified;
+        f.stableSince = now;
+      } else if (now - f.stableSince >= settleMillis) {
+        it.remove();
+        taken.add(f.path);
+        ready.put(f);
+      }
+    }
+  }
+
+  /**
+   *
+   * worker loop: convert ready files, newest first
+   *
+   */
+
+  private void work()
+
+  {
+    while (true) {
+      Pending f;
+      try {
+        f = ready.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      Path in = f.path;
+      String name = in.getFileName().toString();
+      File out = new File(
+        (outDir != null) ? outDir : in.getParent().toFile(), name + ".nc");
+
+      boolean ok = BatchConverter.convert("ingest",
+        new String [] {in.toString(), out.getPath()}, options);
+
+      Path dest = in.getParent().resolve(ok ? "done" : "failed").resolve(name);
+      try {
+        Files.move(in, dest, StandardCopyOption.REPLACE_EXISTING);
+        taken.remove(in);
+      } catch (IOException e) {
+        // still taken, so a rescan doesn't convert it again
+        System.out.println("ingest: can't move " + in + ", left in the spool: " + e);
+      }
+    }
+  }
+
+  /**
+   *
+   * a spool file and what it looked like when last checked
+   *
+   */
+
+  private static class Pending {
+
+    Path path;
+    long size = -1;
+    long modified = -1;
+    long stableSince = 0;
+
+    Pending(Path p) {
+      path = p;
+    }
+
+  }
+
+}
@@ -0,0 +1,492 @@
+import java.io.IOException;
+import java.util.Arrays;
+import edu.wisc.ssec.mcidas.AncillaryData;
+import edu.wisc.ssec.mcidas.Calibrator;
+
+/**
+ * LineBlock holds a run of consecutive image lines on their way
+ * through the conversion: raw values as read from SensorData, the
+ * calibrated (or raw) output lines and their lats/lons.  The same
+ * block is used by the serial loop, one line at a time, and by the
+ * threaded pipeline, where blocks are handed between the reader,
+ * the workers and the writer.  A block never touches anything but
+ * its own buffers and the objects passed in, so blocks can be
+ * worked on concurrently as long as each has its own Navigator.
+ *
+ * Line numbers are window lines (see ImageWindow); only navigation
+ * with a Navigator needs file coordinates.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class LineBlock {
+
+  private int first = 0;
+  private int count = 0;
+  private int nb = 0;
+  private int ne = 0;
+  private int dw = 0;
+  private int calTypeOut;
+  private boolean awips;
+  private boolean rawNative;
+  private boolean nav;
+  private boolean packImage = false;
+  private boolean packLatLon = false;
+
+  // part of the image converted
+  private ImageWindow window;
+
+  // stage timing, or null
+  private ConversionStats stats = null;
+
+  // raw lines, bands interleaved
+  private float [][] raw = null;
+  private byte [][] rawBytes = null;
+  private short [][] rawShorts = null;
+  private int [][] rawInts = null;
+
+  // output lines, [band][line][element], or [line][element] for AWIPS
+  private float [][][] dataOut = null;
+  private byte [][][] byteOut = null;
+  private short [][][] shortOut = null;
+  private int [][][] intOut = null;
+  private byte [][] awipsOut = null;
+
+  // navigation
+  private double [] navLines = null;
+  private double [] navElems = null;
+  private float [][] latOut = null;
+  private float [][] lonOut = null;
+  private short [][] latPacked = null;
+  private short [][] lonPacked = null;
+
+  /**
+   *
+   * constructor
+   *
+   * @param ad          AncillaryData object
+   * @param Count       number of lines the block holds
+   * @param CalTypeOut  output calibration type
+   * @param Awips       true for AWIPS (2-D byte) output
+   * @param RawNative   true to keep raw values at source width
+   * @param Nav         true to compute lats/lons
+   *
+   */
+
+  public LineBlock (
+    AncillaryData ad,
+    int Count,
+    int CalTypeOut,
+    boolean Awips,
+    boolean RawNative,
+    boolean Nav
+  )
+
+  {
+    nb = ad.getNumBands();
+    ne = ad.getNumElements();
+    dw = ad.getDataWidth();
+    calTypeOut = CalTypeOut;
+    awips = Awips;
+    rawNative = RawNative;
+    nav = Nav;
+    window = new ImageWindow(ad);
+    allocate(Count);
+  }
+
+  /**
+   *
+   * size all buffers for n lines
+   *
+   */
+
+  private void allocate(int n)
+
+  {
+    count = n;
+
+    raw = null;
+    rawBytes = null;
+    rawShorts = null;
+    rawInts = null;
+    dataOut = null;
+    byteOut = null;
+    shortOut = null;
+    intOut = null;
+    awipsOut = null;
+
+    if (rawNative) {
+      if (dw == 1) {
+        rawBytes = new byte[n][ne * nb];
+        byteOut = new byte[nb][n][ne];
+      } else if (dw == 4) {
+        rawInts = new int[n][ne * nb];
+        intOut = new int[nb][n][ne];
+      } else {
+        rawShorts = new short[n][ne * nb];
+        shortOut = new short[nb][n][ne];
+      }
+    } else {
+      raw = new float[n][ne * nb];
+      if (awips) {
+        awipsOut = new byte[n][ne];
+      } else if (calTypeOut == Calibrator.CAL_BRIT) {
+        byteOut = new byte[nb][n][ne];
+      } else if (packImage) {
+        // calibrated values packed to shorts
+        shortOut = new short[nb][n][ne];
+      } else {
+        dataOut = new float[nb][n][ne];
+      }
+    }
+
+    if (nav) {
+      // element part of the nav buffer never changes; use file
+      // coordinates, as for GVAR
+      navLines = new double[ne];
+      navElems = new double[ne];
+      for (int element = 0; element < ne; element++) {
+        navElems[element] = window.toFileElem(element);
+      }
+      latOut = new float[n][ne];
+      lonOut = new float[n][ne];
+      latPacked = packLatLon ? new short[n][ne] : null;
+      lonPacked = packLatLon ? new short[n][ne] : null;
+    }
+  }
+
+  /**
+   *
+   * store the image and/or lats/lons as packed shorts.  The image
+   * is packed by the CalibrationTable, which must have its packing
+   * set; lats/lons use Packing.LAT and Packing.LON.
+   *
+   * @param Image       true to pack calibrated image values
+   * @param LatLon      true to pack lats/lons
+   *
+   */
+
+  public void setPacking(boolean Image, boolean LatLon)
+
+  {
+    packImage = Image;
+    packLatLon = LatLon;
+    allocate(count);
+  }
+
+  /**
+   *
+   * convert only the lines and elements in a window
+   *
+   * @param w           ImageWindow object
+   *
+   */
+
+  public void setWindow(ImageWindow w)
+
+  {
+    ne = w.getNumElems();
+    nb = w.getNumBands();
+    window = w;
+    allocate(count);
+  }
+
+  /**
+   *
+   * time the block's stages
+   *
+   * @param s           ConversionStats object, or null for none
+   *
+   */
+
+  public void setStats(ConversionStats s)
+
+  {
+    stats = s;
+  }
+
+  /**
+   *
+   * point the block at Count lines starting at line First.  Output
+   * arrays are shaped to the exact line count, so a short final
+   * block gets buffers of its own.
+   *
+   * @param First       first window line number, 0 based
+   * @param Count       number of lines
+   *
+   */
+
+  public void setLines(int First, int Count)
+
+  {
+    first = First;
+    if (Count != count) {
+      allocate(Count);
+    }
+  }
+
+  /**
+   *
+   * return first line number of the block
+   *
+   */
+
+  public int getFirst() {
+    return first;
+  }
+
+  /**
+   *
+   * return number of lines in the block
+   *
+   */
+
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   *
+   * return the AWIPS output buffer, [line][element]; used when the
+   * lines are filled from somewhere other than SensorData
+   *
+   */
+
+  public byte[][] getAwipsOut() {
+    return awipsOut;
+  }
+
+  /**
+   *
+   * read the block's lines from the sensor data
+   *
+   * @param sd          SensorData positioned at the first line
+   *
+   */
+
+  public void read(SensorData sd)
+    throws IOException
+
+  {
+    if (stats != null) {
+      stats.start();
+    }
+    for (int i = 0; i < count; i++) {
+      if (rawBytes != null) {
+        sd.nextLine(rawBytes[i]);
+      } else if (rawShorts != null) {
+        sd.nextLine(rawShorts[i]);
+      } else if (rawInts != null) {
+        sd.nextLine(rawInts[i]);
+      } else {
+        sd.nextLine(raw[i]);
+      }
+    }
+    if (stats != null) {
+      stats.stop(ConversionStats.DECODE, first, count, (long) count * ne * nb * dw);
+    }
+  }
+
+  /**
+   *
+   * calibrate (or, for native raw output, just split out the bands)
+   *
+   * @param ct          CalibrationTable object, unused for native raw
+   *
+   */
+
+  public void calibrate(CalibrationTable ct)
+
+  {
+    if (stats != null) {
+      stats.start();
+    }
+    for (int i = 0; i < count; i++) {
+
+      if (rawNative) {
+        for (int bandIdx = 0; bandIdx < nb; bandIdx++) {
+          for (int element = 0; element < ne; element++) {
+            int idx = bandIdx + (element * nb);
+            if (rawBytes != null) {
+              byteOut[bandIdx][i][element] = rawBytes[i][idx];
+            } else if (rawShorts != null) {
+              shortOut[bandIdx][i][element] = rawShorts[i][idx];
+            } else {
+              intOut[bandIdx][i][element] = rawInts[i][idx];
+            }
+          }
+        }
+        continue;
+      }
+
+      if (awips) {
+        // AWIPS images hold a single band
+        ct.calibrate(raw[i], 0, nb, awipsOut[i]);
+        continue;
+      }
+
+      for (int bandIdx = 0; bandIdx < nb; bandIdx++) {
+        if (shortOut != null) {
+          // packed float output, also in one pass
+          ct.calibrate(raw[i], bandIdx, nb, shortOut[bandIdx][i]);
+        } else if (byteOut != null) {
+          ct.calibrate(raw[i], bandIdx, nb, byteOut[bandIdx][i]);
+        } else {
+          // float output takes the whole band in one pass
+          ct.calibrate(raw[i], bandIdx, nb, dataOut[bandIdx][i]);
+        }
+      }
+
+    }
+    if (stats != null) {
+      stats.stop(ConversionStats.CALIBRATE, first, count, 0L);
+    }
+  }
+
+  /**
+   *
+   * compute lats/lons for the block's lines.  With no navigator
+   * the lats/lons stay zero.
+   *
+   * @param n           Navigator object, not shared with other threads
+   *
+   */
+
+  public void navigate(Navigator n)
+
+  {
+    if (!nav || n == null) {
+      return;
+    }
+    if (stats != null) {
+      stats.start();
+    }
+
+    for (int i = 0; i < count; i++) {
+
+      // set up the nav buffer for this line
+      Arrays.fill(navLines, window.toFileLine(first + i));
+
+      // do the transformation for this line, straight into the
+      // lat, lon buffers
+      n.toLatLon(navLines, navElems, 0, ne, latOut[i], lonOut[i]);
+      pack(i);
+
+    }
+    if (stats != null) {
+      stats.stop(ConversionStats.NAVIGATE, first, count, 0L);
+    }
+  }
+
+  /**
+   *
+   * fill lats/lons for the block's lines from a line navigator,
+   * such as an interpolation grid or the navigation cache
+   *
+   * @param ln          LineNavigator object, may be shared between threads
+   *
+   */
+
+  public void navigate(LineNavigator ln)
+    throws IOException
+
+  {
+    if (!nav) {
+      return;
+    }
+    if (stats != null) {
+      stats.start();
+    }
+
+    for (int i = 0; i < count; i++) {
+      ln.fill(first + i, latOut[i], lonOut[i]);
+      pack(i);
+    }
+    if (stats != null) {
+      stats.stop(ConversionStats.NAVIGATE, first, count, 0L);
+    }
+  }
+
+  /**
+   *
+   * pack one line of lats/lons, if wanted
+   *
+   */
+
+  private void pack(int i)
+
+  {
+    if (packLatLon) {
+      Packing.LAT.pack(latOut[i], latPacked[i]);
+      Packing.LON.pack(lonOut[i], lonPacked[i]);
+    }
+  }
+
+  /**
+   *
+   * return the block's latitudes, [line][element]
+   *
+   */
+
+  public float[][] getLats() {
+    return latOut;
+  }
+
+  /**
+   *
+   * return the block's longitudes, [line][element]
+   *
+   */
+
+  public float[][] getLons() {
+    return lonOut;
+  }
+
+  /**
+   *
+   * store the block's lines in the NetCDF variables
+   *
+   * @param dataV       image variable
+   * @param latsV       lats variable, unused without navigation
+   * @param lonsV       lons variable, unused without navigation
+   *
+   */
+
+  public void write(SlabWriter.Var dataV, SlabWriter.Var latsV, SlabWriter.Var lonsV)
+    throws IOException
+
+  {
+    if (stats != null) {
+      stats.start();
+    }
+    if (awipsOut != null) {
+      dataV.put(first, awipsOut);
+    } else if (dataOut != null) {
+      dataV.put(first, dataOut);
+    } else if (byteOut != null) {
+      dataV.put(first, byteOut);
+    } else if (shortOut != null) {
+      dataV.put(first, shortOut);
+    } else {
+      dataV.put(first, intOut);
+    }
+    if (stats != null) {
+      stats.stop(ConversionStats.IMAGE_WRITE, first, count, 0L);
+    }
+
+    if (nav && stats != null) {
+      stats.start();
+    }
+    if (nav && packLatLon) {
+      latsV.put(first, latPacked);
+      lonsV.put(first, lonPacked);
+    } else if (nav) {
+      latsV.put(first, latOut);
+      lonsV.put(first, lonOut);
+    }
+    if (nav && stats != null) {
+      stats.stop(ConversionStats.LATLON_WRITE, first, count, 0L);
+    }
+  }
+
+}
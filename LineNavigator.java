@@ -0,0 +1,21 @@
+import java.io.IOException;
+
+/**
+ * interface for sources of whole lines of lats/lons that don't need
+ * a Navigator call per pixel, such as an interpolation grid or a
+ * cached navigation file.  Implementations must allow calls from
+ * several threads at once.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+interface LineNavigator {
+
+  public void fill (
+    int line,
+    float [] lats,
+    float [] lons
+  )
+    throws IOException;
+
+}
@@ -0,0 +1,293 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * MappedAreaFile maps the data portion of a local McIDAS area file
+ * into memory, so that any line, or range of lines, can be looked
+ * at in place rather than pulled value by value through a stream.
+ * The mapping is split into regions of whole lines, since a single
+ * mapped buffer cannot exceed 2 GB.  All buffers handed out are
+ * read-only views set to the byte order of the data.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class MappedAreaFile {
+
+  // largest region we will map in one piece
+  private static final long MAX_REGION = Integer.MAX_VALUE;
+
+  private RandomAccessFile raf = null;
+  private FileChannel fc = null;
+  private ByteBuffer [] regions;
+  private ByteOrder order;
+  private long dataOffset = 0;
+  private int dw = 0;
+  private int ps = 0;
+  private int lineBytes = 0;
+  private int dataBytes = 0;
+  private int numLines = 0;
+  private int linesPerRegion = 0;
+
+  /**
+   *
+   * constructor
+   *
+   * @param fileName    local area file name
+   * @param ad          AncillaryData object
+   *
+   */
+
+  public MappedAreaFile(String fileName, AncillaryData ad)
+    throws IOException
+
+  {
+    dw = ad.getDataWidth();
+    ps = ad.getPrefixSize();
+    dataBytes = dw * ad.getNumElements() * ad.getNumBands();
+    lineBytes = ps + dataBytes;
+    dataOffset = ad.getDataOffset();
+
+    // swapped files were written little endian
+    if (ad.isSwapped()) {
+      order = ByteOrder.LITTLE_ENDIAN;
+    } else {
+      order = ByteOrder.BIG_ENDIAN;
+    }
+
+    raf = new RandomAccessFile(fileName, "r");
+    fc = raf.getChannel();
+
+    // only map the lines that are really there; a truncated file
+    // behaves like the stream reader and fails at the missing line
+    long avail = (fc.size() - dataOffset) / lineBytes;
+    numLines = (int) Math.max(0L, Math.min(avail, (long) ad.getNumLines()));
+
+    linesPerRegion = (int) Math.max(1L, MAX_REGION / lineBytes);
+    int numRegions = (numLines + linesPerRegion - 1) / linesPerRegion;
+    regions = new ByteBuffer[numRegions];
+    for (int i = 0; i < numRegions; i++) {
+      int first = i * linesPerRegion;
+      int count = Math.min(linesPerRegion, numLines - first);
+      regions[i] = map(first, count);
+    }
+  }
+
+  /**
+   *
+   * map count lines starting at line first
+   *
+   */
+
+  private ByteBuffer map(int first, int count)
+    throws IOException
+
+  {
+    ByteBuffer bb = fc.map (
+      FileChannel.MapMode.READ_ONLY,
+      dataOffset + (long) first * lineBytes,
+      (long) count * lineBytes
+    );
+    bb.order(order);
+    return bb;
+  }
+
+  /**
+   *
+   * make sure a line is present in the file
+   *
+   */
+
+  private void check(int line)
+    throws IOException
+
+  {
+    if (line < 0 || line >= numLines) {
+      throw new EOFException("area line " + line + " not in file");
+    }
+  }
+
+  /**
+   *
+   * return the mapped region holding a line.  Along with lineOffset,
+   * this lets callers read values with absolute gets without
+   * creating any view objects.
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public ByteBuffer region(int line)
+    throws IOException
+
+  {
+    check(line);
+    return regions[line / linesPerRegion];
+  }
+
+  /**
+   *
+   * return the offset of the first data value of a line (past the
+   * line prefix) within the buffer returned by region
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public int lineOffset(int line)
+
+  {
+    return (line % linesPerRegion) * lineBytes + ps;
+  }
+
+  /**
+   *
+   * return the data values of one line, prefix excluded
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public ByteBuffer getLine(int line)
+    throws IOException
+
+  {
+    ByteBuffer bb = region(line).duplicate();
+    int off = lineOffset(line);
+    bb.limit(off + dataBytes);
+    bb.position(off);
+    return bb.slice().order(order);
+  }
+
+  /**
+   *
+   * return the prefix of one line
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public ByteBuffer getPrefix(int line)
+    throws IOException
+
+  {
+    ByteBuffer bb = region(line).duplicate();
+    int off = lineOffset(line) - ps;
+    bb.limit(off + ps);
+    bb.position(off);
+    return bb.slice().order(order);
+  }
+
+  /**
+   *
+   * return a range of lines, each starting with its prefix, so that
+   * line first + i begins at i * getLineBytes().  Ranges that cross
+   * a region boundary get a mapping of their own.
+   *
+   * @param first       first image line number, 0 based
+   * @param count       number of lines
+   *
+   */
+
+  public ByteBuffer getLines(int first, int count)
+    throws IOException
+
+  {
+    check(first);
+    check(first + count - 1);
+    if (first / linesPerRegion != (first + count - 1) / linesPerRegion) {
+      if ((long) count * lineBytes > MAX_REGION) {
+        throw new IOException("line range too large to map: " + count);
+      }
+      return map(first, count).asReadOnlyBuffer().order(order);
+    }
+    ByteBuffer bb = regions[first / linesPerRegion].duplicate();
+    int off = (first % linesPerRegion) * lineBytes;
+    bb.limit(off + count * lineBytes);
+    bb.position(off);
+    return bb.slice().order(order);
+  }
+
+  /**
+   *
+   * return one line of 2 byte data as a short view
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public ShortBuffer getShortLine(int line)
+    throws IOException
+
+  {
+    return getLine(line).asShortBuffer();
+  }
+
+  /**
+   *
+   * return one line of 4 byte data as an int view
+   *
+   * @param line        image line number, 0 based
+   *
+   */
+
+  public IntBuffer getIntLine(int line)
+    throws IOException
+
+  {
+    return getLine(line).asIntBuffer();
+  }
+
+  /**
+   *
+   * return number of bytes in a line, prefix included
+   *
+   */
+
+  public int getLineBytes() {
+    return lineBytes;
+  }
+
+  /**
+   *
+   * return number of lines available in the file
+   *
+   */
+
+  public int getNumLines() {
+    return numLines;
+  }
+
+  /**
+   *
+   * return byte order of the data
+   *
+   */
+
+  public ByteOrder getOrder() {
+    return order;
+  }
+
+  /**
+   *
+   * release the file.  The mapped regions stay valid until they are
+   * garbage collected.
+   *
+   */
+
+  public void close()
+    throws IOException
+
+  {
+    fc.close();
+    raf.close();
+  }
+
+}
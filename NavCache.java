@@ -0,0 +1,350 @@
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * NavCache keeps the lat/lon grids of converted images in a cache
+ * directory, so that later images of the same sector (same nav block
+ * and image geometry) can copy them instead of navigating again.
+ * Each entry is a file holding a small header and the lats and lons
+ * as native order floats, read and written through memory mapping.
+ * Entries are written to a temporary file and renamed into place,
+ * so readers never see a partial entry.  The directory is kept under
+ * a size limit by removing the least recently used entries; a hit
+ * marks an entry as used.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class NavCache {
+
+  private static final int MAGIC = 0x41544e4c;  // "ATNL"
+  private static final int FORMAT = 1;
+  private static final int HEADER = 16;
+  private static final String SUFFIX = ".nav";
+
+  // largest piece mapped at once
+  private static final long MAX_REGION = Integer.MAX_VALUE;
+
+  private File dir;
+  private long maxBytes;
+
+  /**
+   *
+   * constructor
+   *
+   * @param Dir         cache directory, created if needed
+   * @param MaxBytes    most bytes of entries to keep
+   *
+   */
+
+  public NavCache(File Dir, long MaxBytes)
+    throws IOException
+
+  {
+    dir = Dir;
+    maxBytes = MaxBytes;
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("can't create nav cache directory " + dir);
+    }
+  }
+
+  /**
+   *
+   * make the cache key for an image: a digest of everything the
+   * lats/lons depend on
+   *
+   * @param navBlock    navigation parameters array
+   * @param ad          AncillaryData object
+   * @param w           ImageWindow object, the part of the image written
+   * @param navInterpKm interpolation error bound, 0 for exact
+   *
+   */
+
+  public static String key (
+    int [] navBlock,
+    AncillaryData ad,
+    ImageWindow w,
+    float navInterpKm
+  )
+
+  {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+    int [] geom = {
+      FORMAT, ad.getStartLine(), ad.getStartElem(), ad.getNumLines(),
+      ad.getNumElements(), ad.getLineRes(), ad.getElemRes(),
+      w.getFirstLine(), w.getLineSpan(), w.getFirstElem(), w.getElemSpan(),
+      w.getLineStep(), w.getElemStep(), w.isAveraged() ? 1 : 0,
+      Float.floatToIntBits(navInterpKm)
+    };
+    ByteBuffer bb = ByteBuffer.allocate(4 * (geom.length + navBlock.length));
+    bb.asIntBuffer().put(geom).put(navBlock);
+    byte [] d = md.digest(bb.array());
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < d.length; i++) {
+      sb.append(Integer.toHexString((d[i] & 0xff) | 0x100).substring(1));
+    }
+    return sb.toString();
+  }
+
+  /**
+   *
+   * look up an entry; returns null on a miss
+   *
+   * @param key         cache key
+   * @param numLines    number of image lines
+   * @param numElements number of image elements
+   *
+   */
+
+  public Entry open(String key, int numLines, int numElements)
+    throws IOException
+
+  {
+    File f = new File(dir, key + SUFFIX);
+    if (!f.isFile()) {
+      return null;
+    }
+
+    Entry e = new Entry(f, numLines, numElements, false);
+    if (!e.isValid()) {
+      e.close();
+      f.delete();
+      return null;
+    }
+
+    // mark as recently used
+    f.setLastModified(System.currentTimeMillis());
+    return e;
+  }
+
+  /**
+   *
+   * start a new entry; lines are added with Entry.put and the entry
+   * appears in the cache on Entry.commit
+   *
+   * @param key         cache key
+   * @param numLines    number of image lines
+   * @param numElements number of image elements
+   *
+   */
+
+  public Entry create(String key, int numLines, int numElements)
+    throws IOException
+
+  {
+    File tmp = File.createTempFile(key, ".tmp", dir);
+    Entry e = new Entry(tmp, numLines, numElements, true);
+    e.target = new File(dir, key + SUFFIX);
+    return e;
+  }
+
+  /**
+   *
+   * remove least recently used entries until the cache fits
+   *
+   */
+
+  private synchronized void evict()
+
+  {
+    File [] files = dir.listFiles(new FileFilter() {
+      public boolean accept(File f) {
+        return f.getName().endsWith(SUFFIX);
+      }
+    });
+    if (files == null) {
+      return;
+    }
+
+    long total = 0;
+    for (int i = 0; i < files.length; i++) {
+      total += files[i].length();
+    }
+
+    Arrays.sort(files, new Comparator<File>() {
+      public int compare(File a, File b) {
+        long d = a.lastModified() - b.lastModified();
+        return d < 0 ? -1 : (d > 0 ? 1 : 0);
+      }
+    });
+
+    for (int i = 0; i < files.length && total > maxBytes; i++) {
+      long len = files[i].length();
+      if (files[i].delete()) {
+        total -= len;
+      }
+    }
+  }
+
+  /**
+   *
+   * one cache file, mapped in regions of whole lines
+   *
+   */
+
+  class Entry implements LineNavigator {
+
+    private RandomAccessFile raf;
+    private FileChannel fc;
+    private File file;
+    private File target = null;
+    private boolean valid = true;
+    private int ne;
+    private int nl;
+    private int linesPerRegion;
+    private FloatBuffer [] latRegions;
+    private FloatBuffer [] lonRegions;
+
+    Entry(File f, int numLines, int numElements, boolean write)
+      throws IOException
+    {
+      file = f;
+      nl = numLines;
+      ne = numElements;
+      long gridBytes = 4L * nl * ne;
+
+      raf = new RandomAccessFile(f, write ? "rw" : "r");
+      fc = raf.getChannel();
+      FileChannel.MapMode mode =
+        write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+
+      ByteBuffer hdr = ByteBuffer.allocate(HEADER);
+      if (write) {
+        hdr.putInt(MAGIC).putInt(FORMAT).putInt(nl).putInt(ne).flip();
+        fc.write(hdr, 0);
+      } else {
+        fc.read(hdr, 0);
+        hdr.flip();
+        valid = fc.size() == HEADER + 2 * gridBytes &&
+          hdr.getInt() == MAGIC && hdr.getInt() == FORMAT &&
+          hdr.getInt() == nl && hdr.getInt() == ne;
+        if (!valid) {
+          return;
+        }
+      }
+
+      linesPerRegion = (int) Math.max(1L, MAX_REGION / (4L * ne));
+      int numRegions = (nl + linesPerRegion - 1) / linesPerRegion;
+      latRegions = new FloatBuffer[numRegions];
+      lonRegions = new FloatBuffer[numRegions];
+      for (int i = 0; i < numRegions; i++) {
+        long first = (long) i * linesPerRegion;
+        long size = 4L * ne * Math.min(linesPerRegion, nl - first);
+        latRegions[i] = fc.map(mode, HEADER + 4L * ne * first, size)
+          .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        lonRegions[i] = fc.map(mode, HEADER + gridBytes + 4L * ne * first, size)
+          .order(ByteOrder.nativeOrder()).asFloatBuffer();
+      }
+    }
+
+    boolean isValid() {
+      return valid;
+    }
+
+    /**
+     *
+     * copy one cached line of lats/lons out
+     *
+     */
+
+    public void fill(int line, float [] lats, float [] lons) {
+      int r = line / linesPerRegion;
+      int off = (line % linesPerRegion) * ne;
+      FloatBuffer fb = latRegions[r].duplicate();
+      fb.position(off);
+      fb.get(lats, 0, ne);
+      fb = lonRegions[r].duplicate();
+      fb.position(off);
+      fb.get(lons, 0, ne);
+    }
+
+    /**
+     *
+     * store lines of lats/lons, [line][element], starting at line first
+     *
+     */
+
+    public void put(int first, float [][] lats, float [][] lons) {
+      for (int i = 0; i < lats.length; i++) {
+        int line = first + i;
+        int r = line / linesPerRegion;
+        int off = (line % linesPerRegion) * ne;
+        FloatBuffer fb = latRegions[r].duplicate();
+        fb.position(off);
+        fb.put(lats[i], 0, ne);
+        fb = lonRegions[r].duplicate();
+        fb.position(off);
+        fb.put(lons[i], 0, ne);
+      }
+    }
+
+    /**
+     *
+     * finish a new entry and make it visible in the cache
+     *
+     */
+
+    public void commit()
+      throws IOException
+    {
+      fc.force(false);
+      close();
+      if (!file.renameTo(target)) {
+        // someone else cached the same sector first
+        file.delete();
+      }
+      target = null;
+      evict();
+    }
+
+    /**
+     *
+     * drop a new entry that couldn't be finished; does nothing once
+     * committed
+     *
+     */
+
+    public void abort() {
+      if (target != null) {
+        try {
+          close();
+        } catch (IOException e) {
+          // nothing more to do
+        }
+        file.delete();
+        target = null;
+      }
+    }
+
+    /**
+     *
+     * release the file; mapped lines stay readable until collected
+     *
+     */
+
+    public void close()
+      throws IOException
+    {
+      fc.close();
+      raf.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,381 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NavGrid navigates an image approximately: lats/lons are computed
+ * exactly on a coarse grid of lines and elements and bilinearly
+ * interpolated in between.  Each grid cell is checked against exact
+ * navigation at its center and edge midpoints, and split in four
+ * until the interpolation error at those points is within a maximum
+ * distance in km.  Those check points become the corners of the
+ * smaller cells, so no navigation is wasted.
+ *
+ * Cells that straddle the limb (some points in space, some not) are
+ * split down to single pixels, which are navigated exactly.  Cells
+ * that are in space at every check point are split down to SPACE_STEP
+ * and then filled with NaN.  Longitudes are unwrapped within a cell
+ * before interpolating, so cells crossing the date line are fine.
+ *
+ * The grid covers an ImageWindow, and lines and elements are
+ * counted from the window's corner.
+ *
+ * Once built, a NavGrid is read only and may be shared by threads.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class NavGrid implements LineNavigator {
+
+  // starting grid spacing, lines and elements
+  private static final int START_STEP = 64;
+
+  // all-space cells are not split below this size
+  private static final int SPACE_STEP = 16;
+
+  private int numLines;
+  private int numElements;
+  private ImageWindow window;
+  private float maxKm;
+  private int numNavigated = 0;
+
+  // finished cells, grouped by starting grid row
+  private List<List<Cell>> rows;
+
+  /**
+   *
+   * constructor; does all the exact navigation
+   *
+   * @param n           Navigator object
+   * @param Window      ImageWindow object, the part of the image covered
+   * @param MaxKm       largest interpolation error allowed, in km
+   *
+   */
+
+  public NavGrid (
+    Navigator n,
+    ImageWindow Window,
+    float MaxKm
+  )
+
+  {
+    numLines = Window.getNumLines();
+    numElements = Window.getNumElems();
+    window = Window;
+    maxKm = MaxKm;
+
+    // lay out the starting grid, last row/column may be short
+    int [] lineNodes = nodes(numLines);
+    int [] elemNodes = nodes(numElements);
+    int nRows = Math.max(1, lineNodes.length - 1);
+    int nCols = Math.max(1, elemNodes.length - 1);
+
+    double [][] ll = navigate(n, lineNodes, elemNodes);
+
+    rows = new ArrayList<List<Cell>>(nRows);
+    List<Cell> todo = new ArrayList<Cell>();
+    for (int r = 0; r < nRows; r++) {
+      rows.add(new ArrayList<Cell>());
+      int r1 = Math.min(r + 1, lineNodes.length - 1);
+      for (int k = 0; k < nCols; k++) {
+        int k1 = Math.min(k + 1, elemNodes.length - 1);
+        Cell c = new Cell(r, lineNodes[r], lineNodes[r1], elemNodes[k], elemNodes[k1]);
+        int w = elemNodes.length;
+        c.set(0, ll, r * w + k);
+        c.set(1, ll, r * w + k1);
+        c.set(2, ll, r1 * w + k);
+        c.set(3, ll, r1 * w + k1);
+        todo.add(c);
+      }
+    }
+
+    // check and split, a whole generation of cells at a time
+    while (!todo.isEmpty()) {
+      todo = refine(n, todo);
+    }
+  }
+
+  /**
+   *
+   * grid node positions along one image axis
+   *
+   */
+
+  private static int [] nodes(int size)
+
+  {
+    int count = (size - 1 + START_STEP - 1) / START_STEP + 1;
+    int [] nodes = new int[Math.max(1, count)];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = Math.min(i * START_STEP, size - 1);
+    }
+    return nodes;
+  }
+
+  /**
+   *
+   * navigate every combination of lines and elements exactly; the
+   * result is indexed [lat/lon][line index * elements + elem index]
+   *
+   */
+
+  private double [][] navigate(Navigator n, int [] lines, int [] elems)
+
+  {
+    double [] ls = new double[lines.length * elems.length];
+    double [] es = new double[ls.length];
+    int k = 0;
+    for (int i = 0; i < lines.length; i++) {
+      for (int j = 0; j < elems.length; j++) {
+        ls[k] = lines[i];
+        es[k] = elems[j];
+        k++;
+      }
+    }
+    return navigate(n, ls, es);
+  }
+
+  private double [][] navigate(Navigator n, double [] ls, double [] es)
+
+  {
+    // to file coordinates
+    for (int i = 0; i < ls.length; i++) {
+      ls[i] = window.toFileLine(ls[i]);
+      es[i] = window.toFileElem(es[i]);
+    }
+    numNavigated += ls.length;
+    double [][] ll = new double[2][ls.length];
+    n.toLatLon(ls, es, 0, ls.length, ll[0], ll[1]);
+    return ll;
+  }
+
+  /**
+   *
+   * check one generation of cells; return the cells that have to be
+   * split further
+   *
+   */
+
+  private List<Cell> refine(Navigator n, List<Cell> cells)
+
+  {
+    // the 5 check points of every cell in one navigation call: the
+    // center, then the midpoints of the top, bottom, left and right
+    // edges
+    double [] checkLines = new double[cells.size() * 5];
+    double [] checkElems = new double[cells.size() * 5];
+    for (int i = 0; i < cells.size(); i++) {
+      Cell c = cells.get(i);
+      int lm = (c.l0 + c.l1) / 2;
+      int em = (c.e0 + c.e1) / 2;
+      int [] ls = {lm, c.l0, c.l1, lm, lm};
+      int [] es = {em, em, em, c.e0, c.e1};
+      for (int j = 0; j < 5; j++) {
+        checkLines[i * 5 + j] = ls[j];
+        checkElems[i * 5 + j] = es[j];
+      }
+    }
+    double [][] ll = navigate(n, checkLines, checkElems);
+
+    List<Cell> next = new ArrayList<Cell>();
+    float [] ptLat = new float[1];
+    float [] ptLon = new float[1];
+    for (int i = 0; i < cells.size(); i++) {
+      Cell c = cells.get(i);
+      int lm = (c.l0 + c.l1) / 2;
+      int em = (c.e0 + c.e1) / 2;
+      boolean canSplit = (c.l1 - c.l0 > 1) || (c.e1 - c.e0 > 1);
+
+      int nan = c.countNaN();
+      float err = 0.0f;
+      int [] ls = {lm, c.l0, c.l1, lm, lm};
+      int [] es = {em, em, em, c.e0, c.e1};
+      for (int j = 0; j < 5; j++) {
+        double lat = ll[0][i * 5 + j];
+        double lon = ll[1][i * 5 + j];
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+          nan++;
+          continue;
+        }
+        if (nan == 0) {
+          c.interpolate(ls[j], es[j], ptLat, ptLon, 0);
+          err = Math.max(err, ConversionUtility.LatLonToDistance (
+            ptLat[0], ptLon[0], (float) lat, (float) lon));
+        }
+      }
+
+      boolean split;
+      if (nan == 9) {
+        // all space; stop at a small size and call it space
+        c.space = true;
+        split = (c.l1 - c.l0 > SPACE_STEP) || (c.e1 - c.e0 > SPACE_STEP);
+      } else if (nan > 0) {
+        // on the limb; go to exact pixels
+        split = true;
+      } else {
+        split = err > maxKm;
+      }
+
+      if (!split || !canSplit) {
+        rows.get(c.row).add(c);
+        continue;
+      }
+
+      // corners of the children are the check points just navigated
+      double [] center = {ll[0][i * 5],     ll[1][i * 5]};
+      double [] top    = {ll[0][i * 5 + 1], ll[1][i * 5 + 1]};
+      double [] bottom = {ll[0][i * 5 + 2], ll[1][i * 5 + 2]};
+      double [] left   = {ll[0][i * 5 + 3], ll[1][i * 5 + 3]};
+      double [] right  = {ll[0][i * 5 + 4], ll[1][i * 5 + 4]};
+
+      boolean splitL = (c.l1 - c.l0 > 1);
+      boolean splitE = (c.e1 - c.e0 > 1);
+      if (splitL && splitE) {
+        next.add(c.child(c.l0, lm, c.e0, em, c.corner(0), top, left, center));
+        next.add(c.child(c.l0, lm, em, c.e1, top, c.corner(1), center, right));
+        next.add(c.child(lm, c.l1, c.e0, em, left, center, c.corner(2), bottom));
+        next.add(c.child(lm, c.l1, em, c.e1, center, right, bottom, c.corner(3)));
+      } else if (splitL) {
+        // one element wide: left/right midpoints are the ones we want
+        next.add(c.child(c.l0, lm, c.e0, c.e1, c.corner(0), c.corner(1), left, right));
+        next.add(c.child(lm, c.l1, c.e0, c.e1, left, right, c.corner(2), c.corner(3)));
+      } else {
+        // one line high: top/bottom midpoints are the ones we want
+        next.add(c.child(c.l0, c.l1, c.e0, em, c.corner(0), top, c.corner(2), bottom));
+        next.add(c.child(c.l0, c.l1, em, c.e1, top, c.corner(1), bottom, c.corner(3)));
+      }
+    }
+
+    return next;
+  }
+
+  /**
+   *
+   * fill lats/lons for one image line
+   *
+   * @param line        window line number, 0 based
+   * @param lats        latitudes, numElements long
+   * @param lons        longitudes, numElements long
+   *
+   */
+
+  public void fill(int line, float [] lats, float [] lons)
+
+  {
+    int r = Math.min(line / START_STEP, rows.size() - 1);
+    List<Cell> row = rows.get(r);
+    for (int i = 0; i < row.size(); i++) {
+      Cell c = row.get(i);
+      if (line < c.l0 || line > c.l1) {
+        continue;
+      }
+      for (int e = c.e0; e <= c.e1; e++) {
+        if (c.space) {
+          lats[e] = Float.NaN;
+          lons[e] = Float.NaN;
+        } else {
+          c.interpolate(line, e, lats, lons, e);
+        }
+      }
+    }
+  }
+
+  /**
+   *
+   * return number of points navigated exactly while building
+   *
+   */
+
+  public int getNumNavigated() {
+    return numNavigated;
+  }
+
+  /**
+   *
+   * one grid cell: a range of lines and elements, and exact lat/lon
+   * at its corners (upper left, upper right, lower left, lower right)
+   *
+   */
+
+  private static class Cell {
+
+    int row;
+    int l0, l1, e0, e1;
+    double [] lat = new double[4];
+    double [] lon = new double[4];
+    boolean space = false;
+
+    Cell(int Row, int L0, int L1, int E0, int E1) {
+      row = Row;
+      l0 = L0;
+      l1 = L1;
+      e0 = E0;
+      e1 = E1;
+    }
+
+    void set(int corner, double [][] ll, int idx) {
+      lat[corner] = ll[0][idx];
+      lon[corner] = ll[1][idx];
+    }
+
+    double [] corner(int i) {
+      return new double[] {lat[i], lon[i]};
+    }
+
+    Cell child(int L0, int L1, int E0, int E1,
+               double [] ul, double [] ur, double [] bl, double [] br) {
+      Cell c = new Cell(row, L0, L1, E0, E1);
+      double [][] corners = {ul, ur, bl, br};
+      for (int i = 0; i < 4; i++) {
+        c.lat[i] = corners[i][0];
+        c.lon[i] = corners[i][1];
+      }
+      return c;
+    }
+
+    int countNaN() {
+      int count = 0;
+      for (int i = 0; i < 4; i++) {
+        if (Double.isNaN(lat[i]) || Double.isNaN(lon[i])) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    // bilinear interpolation, longitudes unwrapped around corner 0;
+    // corners are returned as is, so cells on the limb (NaN corners)
+    // still give exact values at their valid corners
+    void interpolate(int line, int elem, float [] lats, float [] lons, int idx) {
+      double fl = (l1 == l0) ? 0.0 : (double) (line - l0) / (l1 - l0);
+      double fe = (e1 == e0) ? 0.0 : (double) (elem - e0) / (e1 - e0);
+      if ((fl == 0.0 || fl == 1.0) && (fe == 0.0 || fe == 1.0)) {
+        int i = (fl == 0.0 ? 0 : 2) + (fe == 0.0 ? 0 : 1);
+        lats[idx] = (float) lat[i];
+        lons[idx] = (float) lon[i];
+        return;
+      }
+      double la = 0.0;
+      double lo = 0.0;
+      for (int i = 0; i < 4; i++) {
+        double w = ((i < 2) ? 1.0 - fl : fl) * ((i % 2 == 0) ? 1.0 - fe : fe);
+        double x = lon[i];
+        if (x - lon[0] > 180.0) {
+          x -= 360.0;
+        } else if (x - lon[0] < -180.0) {
+          x += 360.0;
+        }
+        la += w * lat[i];
+        lo += w * x;
+      }
+      if (lo > 180.0) {
+        lo -= 360.0;
+      } else if (lo < -180.0) {
+        lo += 360.0;
+      }
+      lats[idx] = (float) la;
+      lons[idx] = (float) lo;
+    }
+
+  }
+
+}
@@ -1,7 +1,12 @@
 /**
  * interface for creating Navigator classes.
  *
- * @version 1.2 6 Aug 1999
+ * The bulk toLatLon/toLinEle methods take lines and elements (or
+ * lats and lons) as separate arrays and write into arrays the caller
+ * owns, from index off for len points, so a conversion can navigate
+ * line after line without allocating.
+ *
+ * @version 1.3 18 Oct 2026
  * @author Tommy Jasmin, SSEC
  */
 
@@ -15,4 +20,31 @@ interface Navigator {
     double [][] latLon
   );
 
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    float [] lats,
+    float [] lons
+  );
+
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    double [] lats,
+    double [] lons
+  );
+
+  public void toLinEle (
+    double [] lats,
+    double [] lons,
+    int off,
+    int len,
+    double [] lines,
+    double [] elems
+  );
+
 }
@@ -14,7 +14,7 @@ import edu.wisc.ssec.mcidas.AncillaryData;
  * @author Tommy Jasmin, SSEC, and Tom Whittaker
  */
 
-class NavigatorGeos implements Navigator {
+class NavigatorGeos extends BulkNavigator {
 
   private GEOSnav ng = null;
  
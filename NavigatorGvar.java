@@ -14,7 +14,7 @@ import edu.wisc.ssec.mcidas.AncillaryData;
  * @author Tommy Jasmin, SSEC
  */
 
-class NavigatorGvar implements Navigator {
+class NavigatorGvar extends BulkNavigator {
 
   private GVARnav ng = null;
  
@@ -10,29 +10,39 @@ import edu.wisc.ssec.mcidas.AncillaryData;
  * is essentially a math copy of the McIDAS source module
  * nvxlamb.dlm.
  *
- * @version 1.3 6 Aug 1999
+ * All projection constants belong to the instance and are fixed
+ * by the constructor, so one navigator may be used by any number
+ * of threads, and navigators for different sectors don't interfere.
+ *
+ * @version 1.4 18 Oct 2026
  * @author Tommy Jasmin, SSEC
  */
 
 class NavigatorLambertConformal implements Navigator {
 
   private static final float rad = 0.01745329f;
-  private float row;
-  private float col;
-  private float r;
-  private float space;
-  private float qLon;
-  private float pole;
-  private float lat1;
-  private float lat2;
-  private float centralLat;
-  private float centralLon;
-  private static float fac;
-  private float fac1;
-  private float bLat;
-  private int iPole;
-  private static int iHem;
-  private boolean isEastPositive=true;
+  private final float row;
+  private final float col;
+  private final float r;
+  private final float space;
+  private final float qLon;
+  private final float pole;
+  private final float lat1;
+  private final float lat2;
+  private final float centralLat;
+  private final float centralLon;
+  private final float fac;
+  private final float fac1;
+  private final float bLat;
+  private final int iPole;
+  private final int iHem;
+  private final boolean isEastPositive = true;
+
+  // area coordinates of the first file line/element
+  private final int startLine;
+  private final int startElem;
+  private final int lineRes;
+  private final int elemRes;
  
   /**
    *
@@ -53,28 +63,21 @@ class NavigatorLambertConformal implements Navigator {
 
     // store central lat and lon
     centralLat = ((float) navBlock[3])/10000.f;
-    centralLon = ((float) navBlock[6])/10000.f;
-    centralLon = -centralLon;
+    centralLon = -((float) navBlock[6])/10000.f;
+
+    startLine = ad.getStartLine();
+    startElem = ad.getStartElem();
+    lineRes = ad.getLineRes();
+    elemRes = ad.getElemRes();
 
     row = (float) navBlock[1];
     col = (float) navBlock[2];
-    iPole = navBlock[11];
-
-    if (iPole == 0) {
-      iPole = 900000;
-    }
-
-    iHem = 1;
-    if (iPole < 0) {
-      iHem = -1;
-    }
+    iPole = (navBlock[11] == 0) ? 900000 : navBlock[11];
+    iHem = (iPole < 0) ? -1 : 1;
 
     pole = ConversionUtility.FloatLatLon(iPole);
-    lat1 = ConversionUtility.FloatLatLon(navBlock[3]);
-    lat2 = ConversionUtility.FloatLatLon(navBlock[4]);
-
-    lat1 = (90.0f - (iHem * lat1)) * rad;
-    lat2 = (90.0f - (iHem * lat2)) * rad;
+    lat1 = (90.0f - (iHem * ConversionUtility.FloatLatLon(navBlock[3]))) * rad;
+    lat2 = (90.0f - (iHem * ConversionUtility.FloatLatLon(navBlock[4]))) * rad;
 
     space = navBlock[5] / 1000.0f;
     qLon = ConversionUtility.FloatLatLon(navBlock[6]);
@@ -112,12 +115,52 @@ class NavigatorLambertConformal implements Navigator {
     return (centralLon);
   }
 
+  /**
+   *
+   * return the two standard parallels, degrees
+   *
+   */
+
+  public double [] getStandardParallels ()
+
+  {
+    return new double[] {
+      iHem * (90.0d - lat1 / rad), iHem * (90.0d - lat2 / rad)
+    };
+  }
+
+  /**
+   *
+   * return the central meridian, degrees east
+   *
+   */
+
+  public double getCentralMeridian ()
+
+  {
+    return isEastPositive ? -qLon : qLon;
+  }
+
+  /**
+   *
+   * return the earth radius, meters
+   *
+   */
+
+  public double getRadius ()
+
+  {
+    return r * 1000.0d;
+  }
+
   /**
    *
    * given a set of lat/lon, return the corresponding line/element
    *
    * @param latLon      an array of latitudes and longitudes
    *
+   * @return area lines in [0], elements in [1]
+   *
    */
  
   public double [][] toLinEle (
@@ -125,92 +168,191 @@ class NavigatorLambertConformal implements Navigator {
   )
 
   {
-
-    double xLat = 0.0d;
-    double xLon = 0.0d;
-    double rLat = 0.0d;
-    double rLon = 0.0d;
-    double cLat = 0.0d;
     int count = latLon[0].length;
     double [][] linEle = new double[2][count];
+    areaLinEle(latLon[0], latLon[1], 0, count, linEle[0], linEle[1]);
+    return (linEle);
+  }
+
+  /**
+   *
+   * given a set of lines/elements, return the corresponding lats/lons.
+   *
+   * @param linEle      area lines in [0], elements in [1]
+   *
+   */
+ 
+  public double [][] toLatLon (
+    double [][] linEle
+  )
 
+  {
+    int count = linEle[0].length;
+    double [][] latLon = new double[2][count];
     for (int i = 0; i < count; i++) {
-      xLon = latLon[1][i];
-      if (isEastPositive) xLon = -xLon;
+      latLon[0][i] = lat(linEle[0][i], linEle[1][i]);
+      latLon[1][i] = lon(linEle[0][i], linEle[1][i]);
+    }
+    return (latLon);
+  }
 
-      rLon = iHem * (xLon - qLon);
-      rLon = ((rLon + 900.0d) % 360.0d) - 180.0d;
-      rLon= rLon * fac * rad;
-     
-      cLat = (90.0d - (iHem * latLon[0][i])) * rad * 0.5d;
-      if (cLat == 0.0d) {
-        rLat = 0.0d;
-      } else {
-        rLat = bLat * Math.pow(Math.tan(Math.abs(cLat)), fac);
-      }
+  /**
+   *
+   * given lines/elements, fill in the corresponding lats/lons.  Unlike
+   * the array methods above, these take file coordinates (0 based
+   * line and element in the image), like the other navigators.
+   *
+   * @param lines       line numbers
+   * @param elems       element numbers
+   * @param off         first point to do, in all four arrays
+   * @param len         number of points
+   * @param lats        latitudes out
+   * @param lons        longitudes out
+   *
+   */
 
-      linEle[0][i] = row + iHem * (rLat * Math.cos(rLon));
-      linEle[1][i] = col - iHem * (rLat * Math.sin(rLon));
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    float [] lats,
+    float [] lons
+  )
 
+  {
+    for (int i = off; i < off + len; i++) {
+      double line = startLine + lines[i] * lineRes;
+      double elem = startElem + elems[i] * elemRes;
+      lats[i] = (float) lat(line, elem);
+      lons[i] = (float) lon(line, elem);
     }
+  }
 
-    return (linEle);
+  public void toLatLon (
+    double [] lines,
+    double [] elems,
+    int off,
+    int len,
+    double [] lats,
+    double [] lons
+  )
 
+  {
+    for (int i = off; i < off + len; i++) {
+      double line = startLine + lines[i] * lineRes;
+      double elem = startElem + elems[i] * elemRes;
+      lats[i] = lat(line, elem);
+      lons[i] = lon(line, elem);
+    }
   }
 
   /**
    *
-   * given a set of lines/elements, return the corresponding lats/lons.
+   * given lats/lons, fill in the corresponding lines/elements
    *
-   * @param linEle      an array of lines and elements
+   * @param lats        latitudes
+   * @param lons        longitudes
+   * @param off         first point to do, in all four arrays
+   * @param len         number of points
+   * @param lines       line numbers out
+   * @param elems       element numbers out
    *
    */
- 
-  public double [][] toLatLon (
-    double [][] linEle
+
+  public void toLinEle (
+    double [] lats,
+    double [] lons,
+    int off,
+    int len,
+    double [] lines,
+    double [] elems
   )
 
   {
+    areaLinEle(lats, lons, off, len, lines, elems);
+    for (int i = off; i < off + len; i++) {
+      lines[i] = (lines[i] - startLine) / lineRes;
+      elems[i] = (elems[i] - startElem) / elemRes;
+    }
+  }
 
-    double lineDiff = 0.0d;
-    double elemDiff = 0.0d;
-    double radius = 0.0d;
-    double rLon = 0.0d;
-    double xLat;
-    double xLon;
-    int count = linEle[0].length;
-    double [][] latLon = new double[2][count];
+  /**
+   *
+   * lats/lons to area lines/elements
+   *
+   */
 
-    for (int i = 0; i < count; i++) {
+  private void areaLinEle (
+    double [] lats,
+    double [] lons,
+    int off,
+    int len,
+    double [] lines,
+    double [] elems
+  )
 
-      lineDiff = iHem * (linEle[0][0] - row) / bLat;
-      elemDiff = -iHem * (linEle[1][0] - col) / bLat;
+  {
+    for (int i = off; i < off + len; i++) {
+      double xLon = lons[i];
+      if (isEastPositive) xLon = -xLon;
 
-      rLon = 0.0d;
-      if ((lineDiff != 0.0d) || (elemDiff != 0.0d)) {
-        rLon = Math.atan2(elemDiff, lineDiff);
+      double rLon = iHem * (xLon - qLon);
+      rLon = ((rLon + 900.0d) % 360.0d) - 180.0d;
+      rLon = rLon * fac * rad;
+
+      double cLat = (90.0d - (iHem * lats[i])) * rad * 0.5d;
+      double rLat = 0.0d;
+      if (cLat != 0.0d) {
+        rLat = bLat * Math.pow(Math.tan(Math.abs(cLat)), fac);
       }
 
-      xLon = iHem * rLon / fac / rad + qLon;
-      xLon = ((xLon + 900.0d) % 360.0d) - 180.0d;
-      if (isEastPositive) xLon = -xLon;
+      lines[i] = row + iHem * (rLat * Math.cos(rLon));
+      elems[i] = col - iHem * (rLat * Math.sin(rLon));
+    }
+  }
 
-      radius = Math.sqrt((lineDiff * lineDiff) + (elemDiff * elemDiff));
+  /**
+   *
+   * latitude of one line/element
+   *
+   */
 
-      if (Math.abs(radius) < 1.0E-10) {
-        xLat = iHem * 90.0d;
-      } else {
-        xLat = (iHem * (90.0d - 2 * Math.atan(Math.exp(
-          Math.log(radius) / fac)) / rad));
-      }
+  private double lat(double line, double elem)
 
-      latLon[0][0] = xLat;
-      latLon[1][0] = xLon;
+  {
+    double lineDiff = iHem * (line - row) / bLat;
+    double elemDiff = -iHem * (elem - col) / bLat;
+    double radius = Math.sqrt((lineDiff * lineDiff) + (elemDiff * elemDiff));
 
+    if (Math.abs(radius) < 1.0E-10) {
+      return iHem * 90.0d;
     }
+    return iHem * (90.0d - 2 * Math.atan(Math.exp(
+      Math.log(radius) / fac)) / rad);
+  }
 
-    return (latLon);
+  /**
+   *
+   * longitude of one line/element
+   *
+   */
+
+  private double lon(double line, double elem)
+
+  {
+    double lineDiff = iHem * (line - row) / bLat;
+    double elemDiff = -iHem * (elem - col) / bLat;
+
+    double rLon = 0.0d;
+    if ((lineDiff != 0.0d) || (elemDiff != 0.0d)) {
+      rLon = Math.atan2(elemDiff, lineDiff);
+    }
 
+    double xLon = iHem * rLon / fac / rad + qLon;
+    xLon = ((xLon + 900.0d) % 360.0d) - 180.0d;
+    if (isEastPositive) xLon = -xLon;
+    return xLon;
   }
 
 }
@@ -13,7 +13,7 @@ import edu.wisc.ssec.mcidas.AncillaryData;
  * @author Tommy Jasmin, SSEC
  */
 
-class NavigatorMercator implements Navigator {
+class NavigatorMercator extends BulkNavigator {
 
   private MERCnav ng = null;
   private float centralLat;
@@ -14,7 +14,7 @@ import edu.wisc.ssec.mcidas.PSnav;
  * @author Tommy Jasmin, SSEC
  */
 
-class NavigatorPolarStereographic implements Navigator {
+class NavigatorPolarStereographic extends BulkNavigator {
   private PSnav ng = null;
 
   private float centralLat;
@@ -0,0 +1,97 @@
+import ucar.netcdf.Attribute;
+import ucar.netcdf.ProtoVariable;
+
+/**
+ * Packing stores float values as shorts the CF way: a value v is
+ * written as round((v - add_offset) / scale_factor), and readers
+ * that follow CF unpack it with packed * scale_factor + add_offset.
+ * The valid range min..max is spread over -32767..32767; NaN and
+ * anything outside the range is written as _FillValue, -32768.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class Packing {
+
+  public static final short FILL = Short.MIN_VALUE;
+
+  // latitude and longitude packings: 0.0028 and 0.0055 degrees, at
+  // worst about 150 and 300 m off
+  public static final Packing LAT = new Packing(-90.0f, 90.0f);
+  public static final Packing LON = new Packing(-180.0f, 180.0f);
+
+  private float scale;
+  private float offset;
+  private float min;
+  private float max;
+
+  /**
+   *
+   * constructor
+   *
+   * @param Min         smallest value to keep
+   * @param Max         largest value to keep
+   *
+   */
+
+  public Packing(float Min, float Max)
+
+  {
+    min = Min;
+    max = Max;
+    offset = (max + min) / 2.0f;
+    scale = (max - min) / 65534.0f;
+    if (!(scale > 0.0f)) {
+      // a single value, or no valid values at all
+      scale = 1.0f;
+    }
+  }
+
+  /**
+   *
+   * pack one value
+   *
+   */
+
+  public short pack(float v)
+
+  {
+    if (!(v >= min && v <= max)) {
+      return FILL;
+    }
+    return (short) Math.max(-32767, Math.min(32767,
+      Math.round((v - offset) / scale)));
+  }
+
+  /**
+   *
+   * pack a line of values
+   *
+   * @param in          values
+   * @param out         packed values, as long as in
+   *
+   */
+
+  public void pack(float [] in, short [] out)
+
+  {
+    for (int i = 0; i < in.length; i++) {
+      out[i] = pack(in[i]);
+    }
+  }
+
+  /**
+   *
+   * add the CF packing attributes to a variable
+   *
+   */
+
+  public void putAttributes(ProtoVariable v)
+
+  {
+    v.putAttribute(new Attribute("scale_factor", scale));
+    v.putAttribute(new Attribute("add_offset", offset));
+    v.putAttribute(new Attribute("_FillValue", FILL));
+  }
+
+}
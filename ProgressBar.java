@@ -0,0 +1,73 @@
+/**
+ * ProgressBar prints the row of dots that shows conversion progress,
+ * one dot per image line, wrapping at 72 columns.  Lines may be
+ * reported from several threads.  Lines also go to the conversion's
+ * JMX monitor, quiet or not.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ProgressBar {
+
+  private boolean isQuiet;
+  private int charCount;
+  private ConversionMonitor.Conversion monitor = null;
+
+  /**
+   *
+   * constructor
+   *
+   * @param quiet       true to print nothing
+   * @param startCount  characters already on the current output line
+   *
+   */
+
+  public ProgressBar(boolean quiet, int startCount)
+
+  {
+    isQuiet = quiet;
+    charCount = startCount;
+  }
+
+  /**
+   *
+   * pass stored lines on to a conversion monitor
+   *
+   * @param m           ConversionMonitor.Conversion object, or null
+   *
+   */
+
+  public void setMonitor(ConversionMonitor.Conversion m)
+
+  {
+    monitor = m;
+  }
+
+  /**
+   *
+   * note that lines have been stored
+   *
+   * @param count       number of lines
+   *
+   */
+
+  public synchronized void lines(int count)
+
+  {
+    if (monitor != null) {
+      monitor.lines(count);
+    }
+    if (isQuiet) {
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      System.out.print(".");
+      charCount++;
+      if (charCount == 72) {
+        charCount = 0;
+        System.out.println("");
+      }
+    }
+  }
+
+}
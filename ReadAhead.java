@@ -0,0 +1,265 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ReadAhead keeps image lines coming in on a background thread, so
+ * the wait for the disk, NFS or an ADDE server overlaps calibration,
+ * navigation and writing instead of stalling them.
+ *
+ * A stream is read into a ring of Depth line buffers: the background
+ * thread fills free buffers, the consumer takes them in order with
+ * next, and each buffer goes back to the ring on the following call.
+ * A read error is handed over in place of the line it failed on.
+ *
+ * A mapped file needs no copying; there the background thread just
+ * touches every page of the next Depth lines, so page faults are
+ * taken on its time.  The consumer reports each line it is done with
+ * through consumed.
+ *
+ * Either way the background thread stops after the last line the
+ * consumer will want, or when stopped.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ReadAhead implements Runnable {
+
+  // bytes per page touched ahead in a mapped file
+  private static final int PAGE = 4096;
+
+  // handed to the consumer in place of a line when a read failed
+  private static final ByteBuffer FAILED = ByteBuffer.allocate(0);
+
+  private DataInputStream dis = null;
+  private MappedAreaFile maf = null;
+  private int first;
+  private int numLines;
+  private int step;
+
+  // stream: free and filled buffers, and the one the consumer has
+  private BlockingQueue<ByteBuffer> free = null;
+  private BlockingQueue<ByteBuffer> full = null;
+  private ByteBuffer current = null;
+  private int taken = 0;
+
+  // mapped file: lines the toucher may still get ahead by
+  private Semaphore ahead = null;
+  private volatile int sink = 0;
+
+  private volatile IOException error = null;
+  private Thread thread;
+
+  /**
+   *
+   * constructor for a stream; starts reading at once
+   *
+   * @param DIS         stream positioned at the first line to read
+   * @param LineBytes   bytes per line, prefix included
+   * @param Order       byte order of the data
+   * @param NumLines    number of lines to read
+   * @param Depth       number of line buffers
+   *
+   */
+
+  public ReadAhead (
+    DataInputStream DIS,
+    int LineBytes,
+    ByteOrder Order,
+    int NumLines,
+    int Depth
+  )
+
+  {
+    dis = DIS;
+    numLines = NumLines;
+    int depth = Math.max(1, Depth);
+    free = new ArrayBlockingQueue<ByteBuffer>(depth);
+    full = new ArrayBlockingQueue<ByteBuffer>(depth + 1);
+    for (int i = 0; i < depth; i++) {
+      ByteBuffer bb = ByteBuffer.wrap(new byte[LineBytes]);
+      bb.order(Order);
+      free.add(bb);
+    }
+    start();
+  }
+
+  /**
+   *
+   * constructor for a mapped file; starts touching lines at once
+   *
+   * @param MAF         mapped area file
+   * @param First       first line that will be read
+   * @param NumLines    number of lines that will be read
+   * @param Step        lines from one read line to the next
+   * @param Depth       number of lines to keep ahead
+   *
+   */
+
+  public ReadAhead (
+    MappedAreaFile MAF,
+    int First,
+    int NumLines,
+    int Step,
+    int Depth
+  )
+
+  {
+    maf = MAF;
+    first = First;
+    numLines = NumLines;
+    step = Math.max(1, Step);
+    ahead = new Semaphore(Math.max(1, Depth));
+    start();
+  }
+
+  /**
+   *
+   * start the background thread
+   *
+   */
+
+  private void start()
+
+  {
+    thread = new Thread(this, "aton-readahead");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   *
+   * background thread: read or touch lines until done
+   *
+   */
+
+  public void run()
+
+  {
+    try {
+      if (maf != null) {
+        touchLines();
+      } else {
+        readLines();
+      }
+    } catch (InterruptedException e) {
+      // stopped
+    }
+  }
+
+  /**
+   *
+   * fill line buffers from the stream
+   *
+   */
+
+  private void readLines()
+    throws InterruptedException
+
+  {
+    for (int i = 0; i < numLines; i++) {
+      ByteBuffer bb = free.take();
+      try {
+        dis.readFully(bb.array());
+      } catch (IOException e) {
+        error = e;
+        full.put(FAILED);
+        return;
+      }
+      full.put(bb);
+    }
+  }
+
+  /**
+   *
+   * touch a byte in every page of the mapped lines
+   *
+   */
+
+  private void touchLines()
+    throws InterruptedException
+
+  {
+    int lineBytes = maf.getLineBytes();
+    int s = 0;
+    for (int i = 0; i < numLines; i++) {
+      ahead.acquire();
+      int line = first + i * step;
+      try {
+        ByteBuffer bb = maf.region(line);
+        int start = maf.lineOffset(line);
+        int end = Math.min(start + lineBytes, bb.limit());
+        for (int pos = start; pos < end; pos += PAGE) {
+          s += bb.get(pos);
+        }
+      } catch (IOException e) {
+        // a short file; the consumer will find out for itself
+        return;
+      }
+    }
+    sink = s;
+  }
+
+  /**
+   *
+   * return the next line read from the stream, prefix first.  The
+   * buffer is good until the next call.
+   *
+   */
+
+  public ByteBuffer next()
+    throws IOException
+
+  {
+    if (current != null) {
+      free.add(current);
+      current = null;
+    }
+    if (taken == numLines) {
+      throw new EOFException("no line " + taken + " read ahead");
+    }
+    taken++;
+    ByteBuffer bb;
+    try {
+      bb = full.take();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("read ahead interrupted");
+    }
+    if (bb == FAILED) {
+      throw error;
+    }
+    current = bb;
+    return bb;
+  }
+
+  /**
+   *
+   * note that the consumer is done with one mapped line
+   *
+   */
+
+  public void consumed()
+
+  {
+    ahead.release();
+  }
+
+  /**
+   *
+   * stop the background thread, if it is still running
+   *
+   */
+
+  public void stop()
+
+  {
+    thread.interrupt();
+  }
+
+}
@@ -14,7 +14,7 @@ import java.net.URL;
  * and creates navigation, calibration, ancillary data and sensor 
  * data objects to help manage the conversion to NetCDF format data.
  *
- * @version 1.7 6 Aug 1999
+ * @version 1.8 18 Oct 2026
  * @author Tommy Jasmin
  */
 
@@ -38,6 +38,8 @@ class ScienceImage {
   private SensorData sd = null;
   private AncillaryData ad = null;
   private DataInputStream dis = null;
+  private MappedAreaFile maf = null;
+  private boolean isLocal = false;
   private Navigator n = null;
   private Calibrator c = null;
   private int [] navBlock; 
@@ -48,8 +50,14 @@ class ScienceImage {
   private static int intPS   = 1347624992;
   private static int intGEOS   = 1195724627;
 
+  // the JVM takes one URL stream handler factory, ever
+  private static boolean addeFactorySet = false;
+
   private int sensorId = -1;
 
+  // input buffer size used unless asked for another
+  private static final int BUFFER_SIZE = 2048;
+
   /**
    *
    * constructor
@@ -61,6 +69,22 @@ class ScienceImage {
   public ScienceImage(String fileName) 
     throws IOException
 
+  {
+    this(fileName, BUFFER_SIZE);
+  }
+
+  /**
+   *
+   * constructor
+   *
+   * @param fileName	input file name
+   * @param BufferSize	input stream buffer size, bytes
+   *
+   */
+
+  public ScienceImage(String fileName, int BufferSize)
+    throws IOException
+
   {
 
     if ((fileName.indexOf("image") < 0) && 
@@ -68,14 +92,15 @@ class ScienceImage {
         (fileName.indexOf("point") < 0)) {
 
       // assume this is a valid McIDAS area for now, should really check
+      isLocal = true;
       dis = new DataInputStream (
-        new BufferedInputStream(new FileInputStream(fileName), 2048)
+        new BufferedInputStream(new FileInputStream(fileName), BufferSize)
       );
 
     } else {
 
       // define a special adde stream handler factory
-      URL.setURLStreamHandlerFactory(new AddeURLStreamHandlerFactory());
+      setAddeFactory();
 
       AddeURLConnection urlc = null;
    
@@ -86,7 +111,9 @@ class ScienceImage {
         System.out.println("Error: " + e);
       }
 
-      dis = urlc.getDataInputStream();
+      dis = new DataInputStream (
+        new BufferedInputStream(urlc.getDataInputStream(), BufferSize)
+      );
 
     }
 
@@ -126,61 +153,7 @@ class ScienceImage {
     }
 
     // create nav objects for the projection types we know how to
-
-    // GVAR
-    if (navBlock[0] == intGVAR) {
-      try {
-        n = new NavigatorGvar(ad, navBlock);
-        System.out.println("making Gvar nav object...");
-      } catch (NavigatorGException e) {
-        n = null;
-        System.out.println(e);
-      }
-    }
-
-    // GEOS
-    if (navBlock[0] == intGEOS) {
-      try {
-        n = new NavigatorGeos(ad, navBlock);
-        System.out.println("making Geos nav object...");
-      } catch (NavigatorGException e) {
-        n = null;
-        System.out.println(e);
-      }
-    }
-
-    // LAMB = Lambert Conformal
-    if (navBlock[0] == intLAMB) {
-      try {
-        n = new NavigatorLambertConformal(ad, navBlock);
-        System.out.println("making Lambert Conformal nav object...");
-      } catch (NavigatorLCException e) {
-        n = null;
-        System.out.println(e);
-      }
-    }
-
-    // MERC = Mercator
-    if (navBlock[0] == intMERC) {
-      try {
-        n = new NavigatorMercator(ad, navBlock);
-        System.out.println("making Mercator nav object...");
-      } catch (NavigatorMException e) {
-        n = null;
-        System.out.println(e);
-      }
-    }
-
-    // PS = Polar Stereographic
-    if (navBlock[0] == intPS) {
-      try {
-        n = new NavigatorPolarStereographic(ad, navBlock);
-        System.out.println("making Polar Stereographic nav object...");
-      } catch (NavigatorPSException e) {
-        n = null;
-        System.out.println(e);
-      }
-    }
+    n = makeNavigator(true);
 
     // now create a calibrator object if possible
     int calBytes = 0;
@@ -256,11 +229,139 @@ class ScienceImage {
 
     }
 
-    // finally, create the sensor data object
-    sd = new SensorData(dis, ad);
+    // finally, create the sensor data object.  local files are
+    // memory mapped; the stream stays in use for ADDE, or if the
+    // mapping can't be made
+    if (isLocal) {
+      try {
+        maf = new MappedAreaFile(fileName, ad);
+      } catch (IOException e) {
+        maf = null;
+        System.out.println("unable to map area file, streaming: " + e);
+      }
+    }
+
+    if (maf != null) {
+      sd = new SensorData(maf, ad);
+      dis.close();
+    } else {
+      sd = new SensorData(dis, ad);
+    }
 
   }
 
+  /**
+   *
+   * create a new Navigator from the nav block.  Navigators keep
+   * working state, so each thread navigating this image needs an
+   * instance of its own.  Returns null for unknown projections.
+   *
+   * @param verbose     print what is being made
+   *
+   */
+
+  public Navigator makeNavigator(boolean verbose)
+    throws IOException
+
+  {
+    Navigator nav = null;
+
+    // GVAR
+    if (navBlock != null && navBlock[0] == intGVAR) {
+      try {
+        nav = new NavigatorGvar(ad, navBlock);
+        if (verbose) System.out.println("making Gvar nav object...");
+      } catch (NavigatorGException e) {
+        nav = null;
+        if (verbose) System.out.println(e);
+      }
+    }
+
+    // GEOS
+    if (navBlock != null && navBlock[0] == intGEOS) {
+      try {
+        nav = new NavigatorGeos(ad, navBlock);
+        if (verbose) System.out.println("making Geos nav object...");
+      } catch (NavigatorGException e) {
+        nav = null;
+        if (verbose) System.out.println(e);
+      }
+    }
+
+    // LAMB = Lambert Conformal
+    if (navBlock != null && navBlock[0] == intLAMB) {
+      try {
+        nav = new NavigatorLambertConformal(ad, navBlock);
+        if (verbose) System.out.println("making Lambert Conformal nav object...");
+      } catch (NavigatorLCException e) {
+        nav = null;
+        if (verbose) System.out.println(e);
+      }
+    }
+
+    // MERC = Mercator
+    if (navBlock != null && navBlock[0] == intMERC) {
+      try {
+        nav = new NavigatorMercator(ad, navBlock);
+        if (verbose) System.out.println("making Mercator nav object...");
+      } catch (NavigatorMException e) {
+        nav = null;
+        if (verbose) System.out.println(e);
+      }
+    }
+
+    // PS = Polar Stereographic
+    if (navBlock != null && navBlock[0] == intPS) {
+      try {
+        nav = new NavigatorPolarStereographic(ad, navBlock);
+        if (verbose) System.out.println("making Polar Stereographic nav object...");
+      } catch (NavigatorPSException e) {
+        nav = null;
+        if (verbose) System.out.println(e);
+      }
+    }
+
+    return nav;
+  }
+
+  /**
+   *
+   * install the adde stream handler factory, once per JVM, so
+   * several images can be read in one run
+   *
+   */
+
+  private static synchronized void setAddeFactory()
+
+  {
+    if (!addeFactorySet) {
+      try {
+        URL.setURLStreamHandlerFactory(new AddeURLStreamHandlerFactory());
+      } catch (Error e) {
+        // somebody else installed one first; adde URLs are theirs
+        System.out.println("URL stream handler factory already set");
+      }
+      addeFactorySet = true;
+    }
+  }
+
+  /**
+   *
+   * release the input: the mapped file, and the stream, which stays
+   * open for ADDE and unmapped files.  Call when done with the image.
+   *
+   */
+
+  public void close()
+    throws IOException
+
+  {
+    if (maf != null) {
+      maf.close();
+    }
+    dis.close();
+  }
+
   /**
    *
    * return reference to AncillaryData object
@@ -291,6 +392,26 @@ class ScienceImage {
     return c;
   }
 
+  /**
+   *
+   * return the cal block, null if the file has none
+   *
+   */
+
+  public int[] getCalBlock() {
+    return calBlock;
+  }
+
+  /**
+   *
+   * return the nav block, null if the file has none
+   *
+   */
+
+  public int[] getNavBlock() {
+    return navBlock;
+  }
+
   /**
    *
    * return reference to SensorData object
@@ -301,4 +422,15 @@ class ScienceImage {
     return sd;
   }
 
+  /**
+   *
+   * return reference to MappedAreaFile object, null if the data
+   * is being streamed
+   *
+   */
+
+  public MappedAreaFile getMAF() {
+    return maf;
+  }
+
 }
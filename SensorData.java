@@ -2,25 +2,69 @@
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.lang.String;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import edu.wisc.ssec.mcidas.AncillaryData;
 
 /**
  * SensorData creates a object used to gather image data on a line
- * by line basis.  Only access method at present is nextLine.
+ * by line basis.  Only access method at present is nextLine, which
+ * either widens to floats or returns values at their native width
+ * (byte, short or int) for RAW output.  Data comes either from a
+ * stream (ADDE) or from a memory mapped local area file.  Either way
+ * a whole line is decoded in one pass from a byte buffer set to the
+ * data's byte order; nothing is allocated per line.  With a window
+ * set, lines above it are skipped and only its elements are decoded.
+ * A reduced window is sampled or block averaged here, as the lines
+ * are read; averages are of the counts, rounded, so the result is
+ * still a count the calibration can look up.  Bands left out of the
+ * window are never decoded.
  *
- * @version 1.3 6 Aug 1999
+ * With read ahead set, a background thread reads (stream) or touches
+ * (mapped file) the lines before they are asked for; see ReadAhead.
+ *
+ * @version 1.4 18 Oct 2026
  * @author Tommy Jasmin, SSEC
  */
 
 class SensorData {
 
   private DataInputStream dis;
+  private MappedAreaFile maf = null;
+  private int curLine = 0;
+  private int rawOff = 0;
   private AncillaryData ad;
   private int dw = 0;
   private int nb = 0;
   private int ps = 0;
+  private int count = 0;
   private boolean isSwapped;
 
+  // window: lines still to skip, and bytes from the first value of
+  // a line to the first value in the window
+  private int skipLines = 0;
+  private int skipBytes = 0;
+
+  // reduced window or some bands only: file lines/elements per output
+  // line/element, window span, file lines of the window not yet read,
+  // the file positions of the bands kept, and the line being built
+  private boolean gather = false;
+  private boolean average = false;
+  private int lineStep = 1;
+  private int elemStep = 1;
+  private int elemSpan = 0;
+  private int linesLeft = 0;
+  private int [] bandSel = null;
+  private double [] acc = null;
+
+  // lines to read ahead, 0 for none, and the reader once started
+  private int readAheadDepth = 0;
+  private ReadAhead readAhead = null;
+
+  // reusable raw line (prefix + data) for the stream path
+  private byte [] lineBytes = null;
+  private ByteBuffer lineBuf = null;
+
   /**
    *
    * constructor
@@ -49,6 +93,102 @@ class SensorData {
     // store line prefix size
     ps = ad.getPrefixSize();
     isSwapped = ad.isSwapped();
+
+    // number of values in a line
+    count = ad.getNumElements() * nb;
+    int lineCount = count;
+    linesLeft = ad.getNumLines();
+
+    // allocate the raw line buffer we'll use, and a view of it in
+    // the byte order of the data
+    if (dis != null) {
+      lineBytes = new byte[ps + lineCount * width()];
+      lineBuf = ByteBuffer.wrap(lineBytes);
+      lineBuf.order(isSwapped ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+  }
+
+  /**
+   *
+   * constructor for a memory mapped local area file
+   *
+   * @param MAF         mapped area file
+   * @param AD          AncillaryData object
+   *
+   */
+
+  public SensorData(MappedAreaFile MAF, AncillaryData AD)
+
+  {
+    this((DataInputStream) null, AD);
+    maf = MAF;
+  }
+
+  /**
+   *
+   * read only the lines and elements in a window.  Must be called
+   * before the first line is read.
+   *
+   * @param w           ImageWindow object
+   *
+   */
+
+  public void setWindow(ImageWindow w)
+
+  {
+    skipLines = w.getFirstLine();
+    skipBytes = w.getFirstElem() * nb * width();
+    count = w.getNumElems() * w.getNumBands();
+    bandSel = w.getBandIndexes();
+
+    lineStep = w.getLineStep();
+    elemStep = w.getElemStep();
+    average = w.isAveraged();
+    elemSpan = w.getElemSpan();
+    linesLeft = w.getLineSpan();
+    gather = (lineStep > 1 || elemStep > 1 || bandSel.length < nb);
+    acc = gather ? new double[count] : null;
+  }
+
+  /**
+   *
+   * read up to Depth lines ahead on a background thread.  Must be
+   * called before the first line is read; the thread starts with the
+   * first read.
+   *
+   * @param Depth       lines to keep ahead, 0 for none
+   *
+   */
+
+  public void setReadAhead(int Depth)
+
+  {
+    readAheadDepth = Depth;
+  }
+
+  /**
+   *
+   * stop reading ahead.  Call when done with the image, since the
+   * background thread waits for lines to be taken.
+   *
+   */
+
+  public void stopReadAhead()
+
+  {
+    if (readAhead != null) {
+      readAhead.stop();
+    }
+  }
+
+  /**
+   *
+   * bytes per value; anything unrecognized is read as 2 byte data
+   *
+   */
+
+  private int width() {
+    return (dw == 1 || dw == 4) ? dw : 2;
   }
 
   /**
@@ -62,43 +202,294 @@ class SensorData {
   public float[] nextLine(float [] dataLine) 
     throws IOException 
   {
-    byte tmpByte;
-    int tmpInt;
+    if (gather) {
+      gather();
+      for (int i = 0; i < count; i++) {
+        // 1 byte counts are signed from here on
+        dataLine[i] = (float) ((dw == 1) ? (byte) acc[i] : acc[i]);
+      }
+      return dataLine;
+    }
+    // one read for the prefix and all the values
+    ByteBuffer bb = rawLine();
+    return decode(bb, rawOff, dataLine);
+  }
+
+  /**
+   *
+   * load next line of 1 byte data into byte array provided, without
+   * widening or calibrating
+   *
+   * @param dataLine	buffer to return data in
+   *
+   */
+
+  public byte[] nextLine(byte [] dataLine)
+    throws IOException
+  {
+    if (gather) {
+      gather();
+      for (int i = 0; i < count; i++) {
+        dataLine[i] = (byte) acc[i];
+      }
+      return dataLine;
+    }
+    ByteBuffer bb = rawLine();
+    int off = rawOff;
+    for (int i = 0; i < count; i++) {
+      dataLine[i] = bb.get(off + i);
+    }
+    return dataLine;
+  }
+
+  /**
+   *
+   * load next line of 2 byte data into short array provided, without
+   * widening or calibrating.  Values are unsigned.
+   *
+   * @param dataLine	buffer to return data in
+   *
+   */
+
+  public short[] nextLine(short [] dataLine)
+    throws IOException
+  {
+    if (gather) {
+      gather();
+      for (int i = 0; i < count; i++) {
+        dataLine[i] = (short) acc[i];
+      }
+      return dataLine;
+    }
+    ByteBuffer bb = rawLine();
+    int off = rawOff;
+    for (int i = 0; i < count; i++) {
+      dataLine[i] = bb.getShort(off + 2 * i);
+    }
+    return dataLine;
+  }
+
+  /**
+   *
+   * load next line of 4 byte data into int array provided, without
+   * widening or calibrating
+   *
+   * @param dataLine	buffer to return data in
+   *
+   */
+
+  public int[] nextLine(int [] dataLine)
+    throws IOException
+  {
+    if (gather) {
+      gather();
+      for (int i = 0; i < count; i++) {
+        dataLine[i] = (int) acc[i];
+      }
+      return dataLine;
+    }
+    ByteBuffer bb = rawLine();
+    int off = rawOff;
+    if (isSwapped) {
+      // same 16 bit rule as the float decoding
+      for (int i = 0; i < count; i++) {
+        dataLine[i] = bb.getInt(off + 4 * i) & 0xFFFF;
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        dataLine[i] = bb.getInt(off + 4 * i);
+      }
+    }
+    return dataLine;
+  }
+
+  /**
+   *
+   * fetch the next raw line, returning the buffer that holds it; the
+   * first value is at rawOff
+   *
+   */
+
+  private ByteBuffer rawLine()
+    throws IOException
+  {
+    if (readAheadDepth > 0 && readAhead == null) {
+      startReadAhead();
+    }
+
+    if (maf != null) {
+      // mapped lines above the window are never touched
+      curLine += skipLines;
+      skipLines = 0;
+      ByteBuffer bb = maf.region(curLine);
+      rawOff = maf.lineOffset(curLine) + skipBytes;
+      curLine++;
+      if (readAhead != null) {
+        readAhead.consumed();
+      }
+      return bb;
+    }
+    while (skipLines > 0) {
+      streamLine();
+      curLine++;
+      skipLines--;
+    }
+    ByteBuffer bb = streamLine();
+    curLine++;
+    rawOff = ps + skipBytes;
+    return bb;
+  }
+
+  /**
+   *
+   * read the next line, prefix included, from the stream
+   *
+   */
+
+  private ByteBuffer streamLine()
+    throws IOException
+
+  {
+    if (readAhead != null) {
+      return readAhead.next();
+    }
+    dis.readFully(lineBytes);
+    return lineBuf;
+  }
+
+  /**
+   *
+   * start the background reader on the lines still to be read
+   *
+   */
+
+  private void startReadAhead()
+
+  {
+    if (maf != null) {
+      // sampled lines in between are never read, averaged ones are
+      int step = average ? 1 : lineStep;
+      int lines = average ? linesLeft : (linesLeft + lineStep - 1) / lineStep;
+      readAhead = new ReadAhead (
+        maf, curLine + skipLines, lines, step, readAheadDepth
+      );
+    } else {
+      // a stream has to be read through, up to the window's end
+      readAhead = new ReadAhead (
+        dis, lineBytes.length, lineBuf.order(), skipLines + linesLeft,
+        readAheadDepth
+      );
+    }
+  }
+
+  /**
+   *
+   * read the file lines making up the next output line, and pick out,
+   * sample or average the wanted values into acc
+   *
+   */
+
+  private void gather()
+    throws IOException
+
+  {
+    int rows = average ? Math.min(lineStep, linesLeft) : 1;
+    int nbOut = bandSel.length;
+    int ne = count / nbOut;
+    int w = width();
+
+    for (int i = 0; i < count; i++) {
+      acc[i] = 0.0d;
+    }
+    for (int r = 0; r < rows; r++) {
+      ByteBuffer bb = rawLine();
+      int off = rawOff;
+      for (int j = 0; j < ne; j++) {
+        int e0 = j * elemStep;
+        int e1 = average ? Math.min(e0 + elemStep, elemSpan) : e0 + 1;
+        for (int b = 0; b < nbOut; b++) {
+          double sum = 0.0d;
+          for (int e = e0; e < e1; e++) {
+            sum += value(bb, off + (e * nb + bandSel[b]) * w);
+          }
+          acc[j * nbOut + b] += sum;
+        }
+      }
+    }
 
-    // first, eat any line prefix bytes
-    for (int i = 0; i < ps; i++) {
-      tmpByte = dis.readByte();
+    if (average) {
+      for (int j = 0; j < ne; j++) {
+        int e0 = j * elemStep;
+        int pixels = rows * (Math.min(e0 + elemStep, elemSpan) - e0);
+        for (int b = 0; b < nbOut; b++) {
+          acc[j * nbOut + b] = Math.round(acc[j * nbOut + b] / pixels);
+        }
+      }
+    } else {
+      // lines between samples are skipped on the next read
+      skipLines = lineStep - 1;
     }
+    linesLeft -= Math.min(lineStep, linesLeft);
+  }
+
+  /**
+   *
+   * one raw value, unsigned except for unswapped 4 byte data
+   *
+   */
+
+  private double value(ByteBuffer bb, int pos)
 
+  {
     switch (dw) {
       case 1:
-        for (int i = 0; i < ad.getNumElements() * ad.getNumBands(); i++) {
-          dataLine[i] = (float) dis.readByte();
+        return bb.get(pos) & 0xFF;
+      case 4:
+        if (isSwapped) {
+          return bb.getInt(pos) & 0xFFFF;
+        }
+        return bb.getInt(pos);
+      case 2:
+      default:
+        return bb.getShort(pos) & 0xFFFF;
+    }
+  }
+
+  /**
+   *
+   * widen one line of raw values to floats
+   *
+   * @param bb          buffer holding the line, in data byte order
+   * @param off         offset of first value in bb
+   * @param dataLine	buffer to return data in
+   *
+   */
+
+  private float[] decode(ByteBuffer bb, int off, float [] dataLine)
+
+  {
+    switch (dw) {
+      case 1:
+        for (int i = 0; i < count; i++) {
+          dataLine[i] = (float) bb.get(off + i);
         }
         break;
       case 4:
-        for (int i = 0; i < ad.getNumElements() * ad.getNumBands(); i++) {
-          tmpInt = dis.readInt();
-
-          if (isSwapped) {
-            dataLine[i] = (float) ((( (tmpInt >> 16) & 0xff) << 8 ) | 
-                                       ( (tmpInt >> 24) & 0xff));
-          } else {
-            dataLine[i] = (float)tmpInt;
+        if (isSwapped) {
+          // swapped 4 byte data has only ever kept the low 16 bits
+          for (int i = 0; i < count; i++) {
+            dataLine[i] = (float) (bb.getInt(off + 4 * i) & 0xFFFF);
+          }
+        } else {
+          for (int i = 0; i < count; i++) {
+            dataLine[i] = (float) bb.getInt(off + 4 * i);
           }
         }
         break;
       case 2:
       default:
-        for (int i = 0; i < ad.getNumElements() * ad.getNumBands(); i++) {
-          tmpInt = ((int) dis.readShort() & 0xFFFF);
-          if (isSwapped) {
-            dataLine[i] = (float) (( (tmpInt & 0xff) << 8 ) | 
-                                      ( (tmpInt >> 8) & 0xff)) ;
-
-          } else {
-            dataLine[i] = (float) tmpInt;
-          }
+        for (int i = 0; i < count; i++) {
+          dataLine[i] = (float) (bb.getShort(off + 2 * i) & 0xFFFF);
         }
         break;
     }
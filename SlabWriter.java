@@ -0,0 +1,558 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SlabWriter stores image, lats and lons lines straight into a
+ * netCDF-3 classic file, in place of Variable.copyin, which wraps
+ * every block in a MultiArray and writes it one value at a time.
+ *
+ * The file is created, filled and closed by ucar.netcdf as before, so
+ * its header, padding and small variables are exactly what they were.
+ * SlabWriter then reads the header back for each variable's offset
+ * and shape and writes whole line slabs from the primitive arrays,
+ * converted to big endian in a direct buffer, with positional
+ * FileChannel writes.  Lines land where copyin would have put them,
+ * so the file comes out byte for byte the same.
+ *
+ * Only fixed size variables can be written; the converter makes no
+ * others.  Each thread stages its lines in a buffer of its own, and
+ * positional writes need no lock, so threads may write different
+ * lines at the same time.  The buffers refer only to the channel,
+ * not the writer, so a writer no longer in use takes nothing with it
+ * on a long-lived thread; close and abort drop the closing thread's
+ * buffer at once.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class SlabWriter {
+
+  // header tags and types of the classic format
+  private static final int NC_DIMENSION = 10;
+  private static final int NC_VARIABLE = 11;
+  private static final int NC_ATTRIBUTE = 12;
+  private static final int NC_BYTE = 1;
+  private static final int NC_CHAR = 2;
+  private static final int NC_SHORT = 3;
+  private static final int NC_INT = 4;
+  private static final int NC_FLOAT = 5;
+  private static final int NC_DOUBLE = 6;
+
+  // bytes staged before each write
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private RandomAccessFile raf;
+  private FileChannel fc;
+  private int bufferSize;
+  private Map<String, Var> vars = new HashMap<String, Var>();
+
+  // each writing thread's staging buffer
+  private ThreadLocal<Stage> stages = new ThreadLocal<Stage>() {
+    protected Stage initialValue() {
+      return new Stage(fc, bufferSize);
+    }
+  };
+
+  /**
+   *
+   * constructor; opens a closed NetCDF file for writing
+   *
+   * @param fileName    NetCDF file name
+   *
+   */
+
+  public SlabWriter(String fileName)
+    throws IOException
+
+  {
+    raf = new RandomAccessFile(fileName, "rw");
+    fc = raf.getChannel();
+    try {
+      readHeader();
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    } catch (RuntimeException e) {
+      // a header cut short runs off the end of the buffer
+      raf.close();
+      throw new IOException(fileName + ": bad NetCDF header", e);
+    }
+
+    bufferSize = BUFFER_SIZE;
+    for (Var v : vars.values()) {
+      bufferSize = Math.max(bufferSize, v.lineBytes);
+    }
+  }
+
+  /**
+   *
+   * read variable offsets and shapes from the header
+   *
+   */
+
+  private void readHeader()
+    throws IOException
+
+  {
+    // the header is followed by the data, so it is all in here
+    long len = Math.min(fc.size(), 1L << 20);
+    ByteBuffer h = ByteBuffer.allocate((int) len);
+    while (h.hasRemaining()) {
+      if (fc.read(h, h.position()) < 0) {
+        break;
+      }
+    }
+    h.flip();
+    h.order(ByteOrder.BIG_ENDIAN);
+
+    if (h.get() != 'C' || h.get() != 'D' || h.get() != 'F') {
+      throw new IOException("not a NetCDF classic file");
+    }
+    int version = h.get();
+    if (version != 1 && version != 2) {
+      throw new IOException("NetCDF format version " + version + " not known");
+    }
+    h.getInt();
+
+    // dimensions
+    int [] dimLen = new int[0];
+    int tag = h.getInt();
+    int count = h.getInt();
+    if (tag == NC_DIMENSION) {
+      dimLen = new int[count];
+      for (int i = 0; i < count; i++) {
+        name(h);
+        dimLen[i] = h.getInt();
+      }
+    }
+
+    // global attributes
+    skipAttributes(h);
+
+    // variables
+    tag = h.getInt();
+    count = h.getInt();
+    if (tag != NC_VARIABLE) {
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      String name = name(h);
+      int [] shape = new int[h.getInt()];
+      for (int j = 0; j < shape.length; j++) {
+        shape[j] = dimLen[h.getInt()];
+      }
+      skipAttributes(h);
+      int type = h.getInt();
+      h.getInt();
+      long begin = (version == 1) ? (h.getInt() & 0xffffffffL) : h.getLong();
+      vars.put(name, new Var(name, type, shape, begin));
+    }
+  }
+
+  /**
+   *
+   * read a name from the header
+   *
+   */
+
+  private static String name(ByteBuffer h)
+    throws IOException
+
+  {
+    byte [] b = new byte[h.getInt()];
+    h.get(b);
+    h.position(h.position() + pad(b.length));
+    return new String(b, "UTF-8");
+  }
+
+  /**
+   *
+   * skip an attribute list in the header
+   *
+   */
+
+  private static void skipAttributes(ByteBuffer h)
+    throws IOException
+
+  {
+    int tag = h.getInt();
+    int count = h.getInt();
+    if (tag != NC_ATTRIBUTE) {
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      name(h);
+      int type = h.getInt();
+      int bytes = h.getInt() * typeSize(type);
+      h.position(h.position() + bytes + pad(bytes));
+    }
+  }
+
+  /**
+   *
+   * return bytes of padding after n bytes, to a 4 byte boundary
+   *
+   */
+
+  private static int pad(int n) {
+    return (4 - (n & 3)) & 3;
+  }
+
+  /**
+   *
+   * return bytes per value of a NetCDF type
+   *
+   */
+
+  private static int typeSize(int type)
+    throws IOException
+
+  {
+    switch (type) {
+      case NC_BYTE:
+      case NC_CHAR:
+        return 1;
+      case NC_SHORT:
+        return 2;
+      case NC_INT:
+      case NC_FLOAT:
+        return 4;
+      case NC_DOUBLE:
+        return 8;
+      default:
+        throw new IOException("NetCDF type " + type + " not known");
+    }
+  }
+
+  /**
+   *
+   * return a variable, or null if the file has none of that name
+   *
+   */
+
+  public Var get(String name) {
+    return vars.get(name);
+  }
+
+  /**
+   *
+   * start staging bytes for a file position, in this thread's buffer
+   *
+   */
+
+  private Stage start(long Pos) {
+    Stage st = stages.get();
+    st.pos = Pos;
+    st.buf.clear();
+    return st;
+  }
+
+  /**
+   *
+   * close the file
+   *
+   */
+
+  public void close()
+    throws IOException
+
+  {
+    stages.remove();
+    raf.close();
+  }
+
+  /**
+   *
+   * close the file after a failure
+   *
+   */
+
+  public void abort()
+
+  {
+    stages.remove();
+    try {
+      raf.close();
+    } catch (IOException e) {
+      // nothing more to lose
+    }
+  }
+
+  /**
+   *
+   * Stage is one thread's buffer of bytes on their way to a file
+   * position.  It is static, so the thread's reference to it doesn't
+   * keep the SlabWriter, and with it the ThreadLocal, alive.
+   *
+   */
+
+  private static class Stage {
+
+    private FileChannel fc;
+    private ByteBuffer buf;
+    private long pos;
+
+    Stage(FileChannel Fc, int Size)
+
+    {
+      fc = Fc;
+      buf = ByteBuffer.allocateDirect(Size);
+      buf.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     *
+     * make room for n more bytes in the buffer
+     *
+     */
+
+    void room(int n)
+      throws IOException
+
+    {
+      if (buf.remaining() < n) {
+        flush();
+      }
+    }
+
+    /**
+     *
+     * write out the staged bytes
+     *
+     */
+
+    void flush()
+      throws IOException
+
+    {
+      buf.flip();
+      while (buf.hasRemaining()) {
+        pos += fc.write(buf, pos);
+      }
+      buf.clear();
+    }
+
+  }
+
+  /**
+   *
+   * Var is one variable in the file.  Blocks are given as
+   * [band][line][element] for 3-D variables and [line][element] for
+   * 2-D ones, starting at line First.
+   *
+   */
+
+  public class Var {
+
+    private String name;
+    private int type;
+    private int [] shape;
+    private long begin;
+    private int size;
+    private int lineBytes;
+
+    Var(String Name, int Type, int [] Shape, long Begin)
+      throws IOException
+
+    {
+      name = Name;
+      type = Type;
+      shape = Shape;
+      begin = Begin;
+      size = typeSize(type);
+      lineBytes = size * (shape.length > 0 ? shape[shape.length - 1] : 1);
+    }
+
+    /**
+     *
+     * return the file position of a line, check a block fits there
+     *
+     */
+
+    private long offset(int band, int line, int lines, int elems, int Type, int Rank)
+      throws IOException
+
+    {
+      if (type != Type || shape.length != Rank) {
+        throw new IOException(name + ": wrong type or shape of block");
+      }
+      int nl = shape[Rank - 2];
+      if (line < 0 || line + lines > nl || elems != shape[Rank - 1] ||
+          (Rank == 3 && (band < 0 || band >= shape[0]))) {
+        throw new IOException(name + ": block outside the variable");
+      }
+      return begin + ((long) band * nl + line) * lineBytes;
+    }
+
+    /**
+     *
+     * write a block of lines of every band
+     *
+     */
+
+    public void put(int First, float [][][] v)
+      throws IOException
+
+    {
+      for (int b = 0; b < v.length; b++) {
+        put(b, First, v[b]);
+      }
+    }
+
+    /**
+     *
+     * write a block of lines of every band
+     *
+     */
+
+    public void put(int First, short [][][] v)
+      throws IOException
+
+    {
+      for (int b = 0; b < v.length; b++) {
+        put(b, First, v[b]);
+      }
+    }
+
+    /**
+     *
+     * write a block of lines of every band
+     *
+     */
+
+    public void put(int First, byte [][][] v)
+      throws IOException
+
+    {
+      for (int b = 0; b < v.length; b++) {
+        put(b, First, v[b]);
+      }
+    }
+
+    /**
+     *
+     * write a block of lines of every band
+     *
+     */
+
+    public void put(int First, int [][][] v)
+      throws IOException
+
+    {
+      for (int b = 0; b < v.length; b++) {
+        put(b, First, v[b]);
+      }
+    }
+
+    /**
+     *
+     * write a block of lines of a 2-D variable
+     *
+     */
+
+    public void put(int First, float [][] v)
+      throws IOException
+
+    {
+      put(-1, First, v);
+    }
+
+    /**
+     *
+     * write a block of lines of a 2-D variable
+     *
+     */
+
+    public void put(int First, short [][] v)
+      throws IOException
+
+    {
+      put(-1, First, v);
+    }
+
+    /**
+     *
+     * write a block of lines of a 2-D variable
+     *
+     */
+
+    public void put(int First, byte [][] v)
+      throws IOException
+
+    {
+      put(-1, First, v);
+    }
+
+    /**
+     *
+     * write lines of one band, or of a 2-D variable with Band -1
+     *
+     */
+
+    private void put(int Band, int First, float [][] v)
+      throws IOException
+
+    {
+      int rank = (Band < 0) ? 2 : 3;
+      int ne = (v.length > 0) ? v[0].length : shape[rank - 1];
+      Stage st = start(offset(Math.max(Band, 0), First, v.length, ne, NC_FLOAT, rank));
+      for (int i = 0; i < v.length; i++) {
+        st.room(lineBytes);
+        st.buf.asFloatBuffer().put(v[i]);
+        st.buf.position(st.buf.position() + lineBytes);
+      }
+      st.flush();
+    }
+
+    private void put(int Band, int First, short [][] v)
+      throws IOException
+
+    {
+      int rank = (Band < 0) ? 2 : 3;
+      int ne = (v.length > 0) ? v[0].length : shape[rank - 1];
+      Stage st = start(offset(Math.max(Band, 0), First, v.length, ne, NC_SHORT, rank));
+      for (int i = 0; i < v.length; i++) {
+        st.room(lineBytes);
+        st.buf.asShortBuffer().put(v[i]);
+        st.buf.position(st.buf.position() + lineBytes);
+      }
+      st.flush();
+    }
+
+    private void put(int Band, int First, byte [][] v)
+      throws IOException
+
+    {
+      int rank = (Band < 0) ? 2 : 3;
+      int ne = (v.length > 0) ? v[0].length : shape[rank - 1];
+      Stage st = start(offset(Math.max(Band, 0), First, v.length, ne, NC_BYTE, rank));
+      for (int i = 0; i < v.length; i++) {
+        st.room(lineBytes);
+        st.buf.put(v[i]);
+      }
+      st.flush();
+    }
+
+    private void put(int Band, int First, int [][] v)
+      throws IOException
+
+    {
+      int rank = (Band < 0) ? 2 : 3;
+      int ne = (v.length > 0) ? v[0].length : shape[rank - 1];
+      Stage st = start(offset(Math.max(Band, 0), First, v.length, ne, NC_INT, rank));
+      for (int i = 0; i < v.length; i++) {
+        st.room(lineBytes);
+        st.buf.asIntBuffer().put(v[i]);
+        st.buf.position(st.buf.position() + lineBytes);
+      }
+      st.flush();
+    }
+
+  }
+
+}
@@ -0,0 +1,368 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+/**
+ * Bench runs the microbenchmarks of the conversion hot paths: line
+ * decoding (DecodeBench), calibration (CalibrateBench), navigation
+ * (NavigateBench) and NetCDF line writes (WriteBench).
+ *
+ * Each case is warmed up, then timed over several fixed length
+ * iterations; the score is operations per second, averaged over the
+ * iterations, with their standard deviation as the error.  Every op
+ * returns a value that is summed into a field no one reads, so the
+ * JIT can't drop the work.  Results go to the console and, with
+ * -OUT<file>, to a JSON file that can be kept per release.
+ *
+ * The converter's classes are all in the default package, which JMH
+ * won't generate benchmarks for and which no named package can see,
+ * so this is a small harness of the same shape instead.
+ *
+ *   java Bench [-ONLY<name>] [-WARMUP<n>] [-ITER<n>] [-TIME<ms>]
+ *              [-OUT<file>] [-TAG<label>] [-AREA<file>]
+ *
+ * -ONLY runs the cases whose name starts with <name>, -TAG labels
+ * the results (a release number, say), and -AREA adds navigation and
+ * calibration cases for a real image, for GVAR and GEOS, whose nav
+ * and cal blocks can't be made up.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class Bench {
+
+  // clock reads are this many ops apart
+  private static final int BATCH = 16;
+
+  private static volatile long sink = 0;
+
+  private int warmup = 2;
+  private int iterations = 5;
+  private long timeMs = 500;
+  private String only = null;
+  private List<Case> cases = new ArrayList<Case>();
+  private List<Result> results = new ArrayList<Result>();
+
+  /**
+   *
+   * Case is one benchmark: set up once, then op is run over and over.
+   * Params are name=value pairs, comma separated.
+   *
+   */
+
+  abstract static class Case {
+
+    String name;
+    String params;
+    String unit;
+
+    Case(String Name, String Params, String Unit)
+
+    {
+      name = Name;
+      params = Params;
+      unit = Unit;
+    }
+
+    void setUp() throws Exception {
+    }
+
+    abstract long op() throws Exception;
+
+    void tearDown() throws Exception {
+    }
+
+  }
+
+  /**
+   *
+   * Result holds the scores of one case
+   *
+   */
+
+  static class Result {
+
+    Case c;
+    double [] scores;
+    double mean;
+    double stdev;
+
+    Result(Case C, double [] Scores)
+
+    {
+      c = C;
+      scores = Scores;
+      double sum = 0.0d;
+      for (int i = 0; i < scores.length; i++) {
+        sum += scores[i];
+      }
+      mean = sum / scores.length;
+      double sq = 0.0d;
+      for (int i = 0; i < scores.length; i++) {
+        sq += (scores[i] - mean) * (scores[i] - mean);
+      }
+      stdev = (scores.length > 1) ? Math.sqrt(sq / (scores.length - 1)) : 0.0d;
+    }
+
+  }
+
+  /**
+   *
+   * add a case, unless -ONLY leaves it out
+   *
+   */
+
+  public void add(Case c)
+
+  {
+    if (only == null || c.name.startsWith(only)) {
+      cases.add(c);
+    }
+  }
+
+  /**
+   *
+   * run one case
+   *
+   */
+
+  private Result measure(Case c)
+    throws Exception
+
+  {
+    c.setUp();
+    try {
+      for (int i = 0; i < warmup; i++) {
+        iterate(c);
+      }
+      double [] scores = new double[iterations];
+      for (int i = 0; i < iterations; i++) {
+        scores[i] = iterate(c);
+      }
+      return new Result(c, scores);
+    } finally {
+      c.tearDown();
+    }
+  }
+
+  /**
+   *
+   * run ops for timeMs, return ops per second
+   *
+   */
+
+  private double iterate(Case c)
+    throws Exception
+
+  {
+    long acc = 0;
+    long ops = 0;
+    long t0 = System.nanoTime();
+    long end = t0 + timeMs * 1000000L;
+    long t;
+    do {
+      for (int i = 0; i < BATCH; i++) {
+        acc += c.op();
+      }
+      ops += BATCH;
+      t = System.nanoTime();
+    } while (t < end);
+    sink += acc;
+    return ops * 1.0e9d / (t - t0);
+  }
+
+  /**
+   *
+   * write the results as JSON
+   *
+   */
+
+  private void writeJson(String fileName, String tag)
+    throws IOException
+
+  {
+    SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n");
+    sb.append("  \"tag\": ").append(quote(tag)).append(",\n");
+    sb.append("  \"time\": ").append(quote(iso.format(new Date()))).append(",\n");
+    sb.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+    sb.append("  \"vm\": ").append(quote(System.getProperty("java.vm.name"))).append(",\n");
+    sb.append("  \"os\": ").append(quote(System.getProperty("os.name") + " " +
+      System.getProperty("os.arch"))).append(",\n");
+    sb.append("  \"cpus\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+    sb.append("  \"warmup\": ").append(warmup).append(",\n");
+    sb.append("  \"iterations\": ").append(iterations).append(",\n");
+    sb.append("  \"iterationMs\": ").append(timeMs).append(",\n");
+    sb.append("  \"results\": [");
+    for (int i = 0; i < results.size(); i++) {
+      Result r = results.get(i);
+      sb.append(i == 0 ? "\n" : ",\n");
+      sb.append("    {\"benchmark\": ").append(quote(r.c.name));
+      sb.append(", \"params\": {");
+      String [] p = r.c.params.length() > 0 ? r.c.params.split(",") : new String[0];
+      for (int j = 0; j < p.length; j++) {
+        int eq = p[j].indexOf('=');
+        sb.append(j == 0 ? "" : ", ");
+        sb.append(quote(p[j].substring(0, eq))).append(": ");
+        sb.append(quote(p[j].substring(eq + 1)));
+      }
+      sb.append("}, \"unit\": ").append(quote(r.c.unit + "/s"));
+      sb.append(", \"score\": ").append(r.mean);
+      sb.append(", \"error\": ").append(r.stdev);
+      sb.append(", \"samples\": [");
+      for (int j = 0; j < r.scores.length; j++) {
+        sb.append(j == 0 ? "" : ", ").append(r.scores[j]);
+      }
+      sb.append("]}");
+    }
+    sb.append("\n  ]\n}\n");
+
+    Writer w = new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8");
+    try {
+      w.write(sb.toString());
+    } finally {
+      w.close();
+    }
+  }
+
+  /**
+   *
+   * return a string as a JSON string
+   *
+   */
+
+  static String quote(String s)
+
+  {
+    if (s == null) {
+      return "null";
+    }
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   *
+   * make a scratch directory
+   *
+   */
+
+  static File tempDir()
+    throws IOException
+
+  {
+    File f = File.createTempFile("aton-bench", "");
+    if (!f.delete() || !f.mkdir()) {
+      throw new IOException("can't make " + f);
+    }
+    return f;
+  }
+
+  /**
+   *
+   * delete a scratch directory and its files
+   *
+   */
+
+  static void delete(File dir)
+
+  {
+    File [] files = dir.listFiles();
+    if (files != null) {
+      for (int i = 0; i < files.length; i++) {
+        files[i].delete();
+      }
+    }
+    dir.delete();
+  }
+
+  /**
+   *
+   * run the benchmarks
+   *
+   */
+
+  public static void main(String [] args)
+    throws Exception
+
+  {
+    Bench b = new Bench();
+    String out = null;
+    String tag = "unlabeled";
+    String area = null;
+
+    for (int i = 0; i < args.length; i++) {
+      try {
+        if (args[i].indexOf("-ONLY") >= 0) {
+          b.only = args[i].substring(5);
+        }
+        if (args[i].indexOf("-WARMUP") >= 0) {
+          b.warmup = Integer.parseInt(args[i].substring(7));
+        }
+        if (args[i].indexOf("-ITER") >= 0) {
+          b.iterations = Math.max(1, Integer.parseInt(args[i].substring(5)));
+        }
+        if (args[i].indexOf("-TIME") >= 0) {
+          b.timeMs = Math.max(1, Long.parseLong(args[i].substring(5)));
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("bad option " + args[i] + ", default kept");
+      }
+      if (args[i].indexOf("-OUT") >= 0) {
+        out = args[i].substring(4);
+      }
+      if (args[i].indexOf("-TAG") >= 0) {
+        tag = args[i].substring(4);
+      }
+      if (args[i].indexOf("-AREA") >= 0) {
+        area = args[i].substring(5);
+      }
+    }
+
+    File dir = tempDir();
+    try {
+      DecodeBench.add(b, dir);
+      CalibrateBench.add(b, dir, area);
+      NavigateBench.add(b, dir, area);
+      WriteBench.add(b, dir);
+
+      System.out.println(String.format("%-16s %-48s %14s %12s",
+        "benchmark", "params", "score", "error"));
+      for (int i = 0; i < b.cases.size(); i++) {
+        Case c = b.cases.get(i);
+        Result r = b.measure(c);
+        b.results.add(r);
+        System.out.println(String.format("%-16s %-48s %14.1f %12.1f %s/s",
+          c.name, c.params, r.mean, r.stdev, c.unit));
+      }
+    } finally {
+      delete(dir);
+    }
+
+    if (out != null) {
+      b.writeJson(out, tag);
+      System.out.println("results written to " + out);
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+import java.io.File;
+import edu.wisc.ssec.mcidas.AncillaryData;
+import edu.wisc.ssec.mcidas.Calibrator;
+
+/**
+ * CalibrateBench times calibration of one line, per op, to each
+ * output type: a Calibrator.calibrate call per pixel, one call with
+ * the whole line, and CalibrationTable lookups, as the converter
+ * does.  The synthetic images have no cal block, so they get the
+ * default calibrator; -AREA adds the same cases with a real image's
+ * calibrator and counts.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class CalibrateBench {
+
+  private static final int ELEMS = 2048;
+
+  private static final int [] TYPES = {
+    Calibrator.CAL_RAW, Calibrator.CAL_RAD, Calibrator.CAL_ALB,
+    Calibrator.CAL_TEMP, Calibrator.CAL_BRIT
+  };
+  private static final String [] TYPE_NAMES = {
+    "RAW", "RAD", "ALB", "TEMP", "BRIT"
+  };
+  private static final String [] METHODS = {"pixel", "line", "table"};
+
+  /**
+   *
+   * add the cases
+   *
+   * @param b           Bench to add to
+   * @param dir         scratch directory
+   * @param area        real area file, or null
+   *
+   */
+
+  static void add(Bench b, File dir, String area)
+
+  {
+    int [] widths = {1, 2};
+    for (int w = 0; w < widths.length; w++) {
+      for (int t = 0; t < TYPES.length; t++) {
+        for (int m = 0; m < METHODS.length; m++) {
+          b.add(new LineCase(dir, null, widths[w], t, METHODS[m]));
+        }
+      }
+    }
+    if (area != null) {
+      for (int t = 0; t < TYPES.length; t++) {
+        for (int m = 0; m < METHODS.length; m++) {
+          b.add(new LineCase(dir, area, 0, t, METHODS[m]));
+        }
+      }
+    }
+  }
+
+  /**
+   *
+   * LineCase calibrates one line of band 1 (the first band of a real
+   * image) over and over
+   *
+   */
+
+  static class LineCase extends Bench.Case {
+
+    private File dir;
+    private String area;
+    private int dw;
+    private int type;
+    private String method;
+
+    private Calibrator c;
+    private CalibrationTable ct;
+    private int band;
+    private float [] counts;
+    private float [] work;
+    private float [] out;
+
+    LineCase(File Dir, String Area, int Dw, int Type, String Method)
+
+    {
+      super("calibrate", ((Area != null) ? "image=file" : "dw=" + Dw) +
+        ",to=" + TYPE_NAMES[Type] + ",method=" + Method, "lines");
+      dir = Dir;
+      area = Area;
+      dw = Dw;
+      type = TYPES[Type];
+      method = Method;
+    }
+
+    void setUp()
+      throws Exception
+
+    {
+      String fileName = area;
+      if (fileName == null) {
+        File f = new File(dir, "cal" + dw + ".area");
+        if (!f.exists()) {
+          SyntheticArea sa = new SyntheticArea();
+          sa.setSize(4, ELEMS);
+          sa.setDataWidth(dw);
+          sa.write(f);
+        }
+        fileName = f.getPath();
+      }
+      ScienceImage si = new ScienceImage(fileName);
+      AncillaryData ad = si.getAD();
+      c = si.getC();
+      c.setCalType(ad.getCalType());
+
+      // first band present, and the first line of it
+      int bandMap = ad.getBandMap();
+      band = 1;
+      while (band < 32 && ((bandMap >> (band - 1)) & 1) == 0) {
+        band++;
+      }
+      int ne = ad.getNumElements();
+      int nb = ad.getNumBands();
+      float [] line = new float[ne * nb];
+      si.getSD().nextLine(line);
+      counts = new float[ne];
+      for (int i = 0; i < ne; i++) {
+        counts[i] = line[i * nb];
+      }
+      work = new float[ne];
+      out = new float[ne];
+
+      ct = new CalibrationTable(c, si.getCalBlock(), ad, new int[] {band}, type);
+      si.close();
+    }
+
+    long op()
+
+    {
+      if (method.equals("pixel")) {
+        for (int i = 0; i < counts.length; i++) {
+          out[i] = c.calibrate(counts[i], band, type);
+        }
+      } else if (method.equals("line")) {
+        // the calibrator may work in place
+        System.arraycopy(counts, 0, work, 0, counts.length);
+        float [] r = c.calibrate(work, band, type);
+        return Float.floatToRawIntBits(r[r.length - 1]);
+      } else {
+        ct.calibrate(counts, 0, 1, out);
+      }
+      return Float.floatToRawIntBits(out[out.length - 1]);
+    }
+
+  }
+
+}
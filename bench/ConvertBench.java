@@ -0,0 +1,596 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * ConvertBench times whole AreaToNetCDF conversions over a fixed
+ * matrix of inputs and output modes, and compares them with a stored
+ * baseline, so a slowdown is caught before it reaches production.
+ *
+ * The inputs are made by SyntheticArea: a GVAR imager and a GVAR
+ * sounder image, and Lambert conformal, Mercator and polar
+ * stereographic images at 1, 2 and 4 byte data widths.  Each is
+ * converted -CRAW, -CTEMP, -CBRIT, -AWIPS and -NOLL.  Every
+ * conversion runs in a JVM of its own, so peak memory and
+ * allocations are the conversion's alone; it is repeated, and the
+ * run with the median wall time is kept.  For each it records the
+ * wall time, MB/s of area file read, lines/s, peak resident set
+ * (Linux only; -1 elsewhere) and allocation rate.
+ *
+ * With -BASELINE<file>, a run fails, exit code 1, when any case's
+ * MB/s is more than -THRESHOLD<percent> (default 10) below the
+ * baseline's.  -OUT<file> writes the results, in the form -BASELINE
+ * reads, so a release's results become the next baseline.
+ *
+ *   java ConvertBench [-LINES<n>] [-ELEMS<n>] [-REPEAT<n>]
+ *     [-ONLY<case>] [-WITH<option>] [-JVM<option>] [-OUT<file>]
+ *     [-BASELINE<file>] [-THRESHOLD<percent>] [-TAG<label>]
+ *     [-IMAGER<area file>] [-SOUNDER<area file>]
+ *
+ * -ONLY runs the cases whose name starts with <case>; -WITH adds an
+ * option to every conversion (-WITH-THREADS4, say) and -JVM one to
+ * every JVM (-JVM-Xmx2g).  The synthetic GVAR images have nominal
+ * navigation and no cal block; -IMAGER and -SOUNDER take the nav and
+ * cal blocks from real files, for real GVAR navigation and
+ * calibration.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class ConvertBench {
+
+  private static final String [] MODES =
+    {"-CRAW", "-CTEMP", "-CBRIT", "-AWIPS", "-NOLL"};
+
+  // the line a child conversion reports its measurements on
+  private static final String RESULT = "RESULT ";
+
+  private int numLines = 1024;
+  private int numElems = 1024;
+  private int repeat = 3;
+  private double threshold = 10.0d;
+  private String only = null;
+  private String imager = null;
+  private String sounder = null;
+  private List<String> with = new ArrayList<String>();
+  private List<String> jvm = new ArrayList<String>();
+  private List<Result> results = new ArrayList<Result>();
+
+  /**
+   *
+   * Result holds the measurements of one conversion
+   *
+   */
+
+  static class Result {
+
+    String name;
+    String mode;
+    boolean ok;
+    int lines;
+    long bytes;
+    double wallMs;
+    long allocBytes;
+    long peakRssKB;
+
+    double mbPerSec() {
+      return bytes / 1.0e6d / (wallMs / 1000.0d);
+    }
+
+    double linesPerSec() {
+      return lines / (wallMs / 1000.0d);
+    }
+
+    double allocMBPerSec() {
+      return allocBytes / 1.0e6d / (wallMs / 1000.0d);
+    }
+
+  }
+
+  /**
+   *
+   * make the input images
+   *
+   * @param dir         directory to write them in
+   *
+   * @return            case names and files, in run order
+   *
+   */
+
+  private Map<String, File> makeInputs(File dir)
+    throws IOException
+
+  {
+    Map<String, File> inputs = new LinkedHashMap<String, File>();
+
+    // GVAR: an IR band of an imager, all the bands of a sounder
+    SyntheticArea sa = new SyntheticArea();
+    sa.setSize(numLines, numElems);
+    sa.setSensorId(78);
+    sa.setBands(new int [] {4});
+    sa.setNav("GVAR");
+    sa.setPattern("disk", 0);
+    if (imager != null) {
+      sa.setBlocksFrom(imager);
+    }
+    make(inputs, "gvar-imager", sa, dir);
+
+    int [] channels = new int[19];
+    for (int i = 0; i < channels.length; i++) {
+      channels[i] = i + 1;
+    }
+    sa = new SyntheticArea();
+    sa.setSize(Math.max(1, numLines / 4), Math.max(1, numElems / 4));
+    sa.setSensorId(79);
+    sa.setBands(channels);
+    sa.setNav("GVAR");
+    sa.setPattern("disk", 0);
+    if (sounder != null) {
+      sa.setBlocksFrom(sounder);
+    }
+    make(inputs, "gvar-sounder", sa, dir);
+
+    String [] projs = {"LAMB", "MERC", "PS"};
+    int [] widths = {1, 2, 4};
+    for (int p = 0; p < projs.length; p++) {
+      for (int w = 0; w < widths.length; w++) {
+        String name = projs[p].toLowerCase() + "-dw" + widths[w];
+        sa = new SyntheticArea();
+        sa.setSize(numLines, numElems);
+        sa.setDataWidth(widths[w]);
+        sa.setNav(projs[p]);
+        make(inputs, name, sa, dir);
+      }
+    }
+    return inputs;
+  }
+
+  /**
+   *
+   * write one input image, unless no case will use it.  Files are
+   * numbered, since ScienceImage takes a name with "image" in it
+   * for an ADDE request.
+   *
+   */
+
+  private void make(Map<String, File> inputs, String name, SyntheticArea sa, File dir)
+    throws IOException
+
+  {
+    File f = new File(dir, "input" + inputs.size() + ".area");
+    if (only == null || name.startsWith(only) || only.startsWith(name)) {
+      sa.write(f);
+    }
+    inputs.put(name, f);
+  }
+
+  /**
+   *
+   * run one conversion in a JVM of its own
+   *
+   */
+
+  private Result convert(String name, String mode, File in, File out)
+    throws IOException, InterruptedException
+
+  {
+    List<String> cmd = new ArrayList<String>();
+    cmd.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+    cmd.addAll(jvm);
+    cmd.add("-cp");
+    cmd.add(System.getProperty("java.class.path"));
+    cmd.add("ConvertBench");
+    cmd.add("-RUN");
+    cmd.add(in.getPath());
+    cmd.add(out.getPath());
+    cmd.add(mode);
+    cmd.add("-Q");
+    cmd.addAll(with);
+
+    ProcessBuilder pb = new ProcessBuilder(cmd);
+    pb.redirectErrorStream(true);
+    Process p = pb.start();
+    String report = null;
+    StringBuilder log = new StringBuilder();
+    BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()));
+    try {
+      String line;
+      while ((line = r.readLine()) != null) {
+        if (line.startsWith(RESULT)) {
+          report = line.substring(RESULT.length());
+        } else {
+          log.append(line).append('\n');
+        }
+      }
+    } finally {
+      r.close();
+    }
+    p.waitFor();
+    if (report == null) {
+      throw new IOException(name + " " + mode + ": conversion died\n" + log);
+    }
+
+    String [] v = report.split(" ");
+    Result res = new Result();
+    res.name = name;
+    res.mode = mode;
+    res.ok = Boolean.parseBoolean(v[0]);
+    res.lines = Integer.parseInt(v[1]);
+    res.wallMs = Double.parseDouble(v[2]);
+    res.allocBytes = Long.parseLong(v[3]);
+    res.peakRssKB = Long.parseLong(v[4]);
+    res.bytes = in.length();
+    return res;
+  }
+
+  /**
+   *
+   * run every case of the matrix
+   *
+   */
+
+  private void runAll(File dir)
+    throws IOException, InterruptedException
+
+  {
+    Map<String, File> inputs = makeInputs(dir);
+    File out = new File(dir, "out.nc");
+
+    System.out.println(String.format("%-14s %-7s %10s %10s %12s %10s %12s",
+      "case", "mode", "wall ms", "MB/s", "lines/s", "RSS MB", "alloc MB/s"));
+    for (Map.Entry<String, File> in : inputs.entrySet()) {
+      for (int m = 0; m < MODES.length; m++) {
+        String name = in.getKey();
+        if (only != null && !(name + MODES[m]).startsWith(only)) {
+          continue;
+        }
+        Result [] runs = new Result[repeat];
+        for (int i = 0; i < repeat; i++) {
+          runs[i] = convert(name, MODES[m], in.getValue(), out);
+          out.delete();
+        }
+        Arrays.sort(runs, new Comparator<Result>() {
+          public int compare(Result a, Result b) {
+            return Double.compare(a.wallMs, b.wallMs);
+          }
+        });
+        Result r = runs[repeat / 2];
+        results.add(r);
+        System.out.println(String.format("%-14s %-7s %10.1f %10.1f %12.1f %10.1f %12.1f%s",
+          r.name, r.mode, r.wallMs, r.mbPerSec(), r.linesPerSec(),
+          r.peakRssKB / 1024.0d, r.allocMBPerSec(), r.ok ? "" : "  FAILED"));
+      }
+    }
+  }
+
+  /**
+   *
+   * write the results as JSON, a case to a line
+   *
+   */
+
+  private void writeJson(String fileName, String tag)
+    throws IOException
+
+  {
+    SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n");
+    sb.append("  \"tag\": ").append(Bench.quote(tag)).append(",\n");
+    sb.append("  \"time\": ").append(Bench.quote(iso.format(new Date()))).append(",\n");
+    sb.append("  \"java\": ").append(Bench.quote(System.getProperty("java.version"))).append(",\n");
+    sb.append("  \"os\": ").append(Bench.quote(System.getProperty("os.name") + " " +
+      System.getProperty("os.arch"))).append(",\n");
+    sb.append("  \"cpus\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+    sb.append("  \"lines\": ").append(numLines).append(",\n");
+    sb.append("  \"elems\": ").append(numElems).append(",\n");
+    sb.append("  \"repeat\": ").append(repeat).append(",\n");
+    sb.append("  \"with\": ").append(Bench.quote(with.toString())).append(",\n");
+    sb.append("  \"results\": [");
+    for (int i = 0; i < results.size(); i++) {
+      Result r = results.get(i);
+      sb.append(i == 0 ? "\n" : ",\n");
+      sb.append("    {\"case\": ").append(Bench.quote(r.name));
+      sb.append(", \"mode\": ").append(Bench.quote(r.mode));
+      sb.append(", \"ok\": ").append(r.ok);
+      sb.append(", \"lines\": ").append(r.lines);
+      sb.append(", \"bytes\": ").append(r.bytes);
+      sb.append(", \"wallMs\": ").append(r.wallMs);
+      sb.append(", \"mbPerSec\": ").append(r.mbPerSec());
+      sb.append(", \"linesPerSec\": ").append(r.linesPerSec());
+      sb.append(", \"peakRssMB\": ").append(r.peakRssKB < 0 ? -1.0d : r.peakRssKB / 1024.0d);
+      sb.append(", \"allocMBPerSec\": ").append(r.allocMBPerSec());
+      sb.append("}");
+    }
+    sb.append("\n  ]\n}\n");
+
+    Writer w = new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8");
+    try {
+      w.write(sb.toString());
+    } finally {
+      w.close();
+    }
+  }
+
+  /**
+   *
+   * compare the results with a baseline written by -OUT
+   *
+   * @return            number of cases that regressed or failed
+   *
+   */
+
+  private int compare(String fileName)
+    throws IOException
+
+  {
+    Map<String, Double> base = new HashMap<String, Double>();
+    Pattern p = Pattern.compile("\"case\": \"([^\"]*)\", \"mode\": \"([^\"]*)\"" +
+      ".*\"mbPerSec\": ([-+0-9.eEInfinityNa]+)");
+    Reader fr = new InputStreamReader(new FileInputStream(fileName), "UTF-8");
+    BufferedReader br = new BufferedReader(fr);
+    try {
+      String line;
+      while ((line = br.readLine()) != null) {
+        Matcher m = p.matcher(line);
+        if (m.find()) {
+          base.put(m.group(1) + " " + m.group(2), Double.parseDouble(m.group(3)));
+        }
+      }
+    } finally {
+      br.close();
+    }
+
+    int bad = 0;
+    System.out.println();
+    System.out.println(String.format("against %s, failing below -%.1f%%:", fileName, threshold));
+    for (int i = 0; i < results.size(); i++) {
+      Result r = results.get(i);
+      Double b = base.get(r.name + " " + r.mode);
+      String verdict;
+      if (!r.ok) {
+        verdict = "FAILED to convert";
+        bad++;
+      } else if (b == null) {
+        verdict = "not in baseline";
+      } else {
+        double change = 100.0d * (r.mbPerSec() - b) / b;
+        verdict = String.format("%+7.1f%% (%.1f MB/s was %.1f)", change, r.mbPerSec(), b);
+        if (change < -threshold) {
+          verdict += "  REGRESSED";
+          bad++;
+        }
+      }
+      System.out.println(String.format("%-14s %-7s %s", r.name, r.mode, verdict));
+    }
+    return bad;
+  }
+
+  /**
+   *
+   * convert one file in this JVM and report wall time, allocations
+   * and peak resident set on a line of its own
+   *
+   * @param args        area file, NetCDF file, AreaToNetCDF options
+   *
+   */
+
+  private static void child(String [] args)
+    throws Exception
+
+  {
+    // bytes allocated = bytes the collector freed + growth in use
+    final long [] freed = new long[1];
+    final Set<String> heap = new HashSet<String>();
+    for (MemoryPoolMXBean mp : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (mp.getType() == MemoryType.HEAP) {
+        heap.add(mp.getName());
+      }
+    }
+    NotificationListener l = new NotificationListener() {
+      public void handleNotification(Notification n, Object hb) {
+        if (!n.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+          return;
+        }
+        GarbageCollectionNotificationInfo info =
+          GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        Map<String, MemoryUsage> before = info.getGcInfo().getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = info.getGcInfo().getMemoryUsageAfterGc();
+        long f = 0;
+        for (String pool : heap) {
+          if (before.containsKey(pool) && after.containsKey(pool)) {
+            f += before.get(pool).getUsed() - after.get(pool).getUsed();
+          }
+        }
+        synchronized (freed) {
+          freed[0] += f;
+        }
+      }
+    };
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc instanceof NotificationEmitter) {
+        ((NotificationEmitter) gc).addNotificationListener(l, null, null);
+      }
+    }
+
+    String [] convArgs = Arrays.copyOfRange(args, 1, args.length);
+    long used0 = heapUsed();
+    long t0 = System.nanoTime();
+    AreaToNetCDF anc = new AreaToNetCDF(convArgs);
+    double ms = (System.nanoTime() - t0) / 1.0e6d;
+    long used1 = heapUsed();
+
+    // notifications come on a thread of their own; let them land
+    Thread.sleep(100);
+    long alloc;
+    synchronized (freed) {
+      alloc = freed[0] + used1 - used0;
+    }
+
+    ScienceImage si = new ScienceImage(convArgs[0]);
+    int lines = si.getAD().getNumLines();
+    si.close();
+
+    System.out.println(RESULT + anc.isConverted() + " " + lines + " " + ms + " " +
+      Math.max(0, alloc) + " " + peakRssKB());
+  }
+
+  /**
+   *
+   * return heap bytes in use
+   *
+   */
+
+  private static long heapUsed()
+
+  {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   *
+   * return the peak resident set of this process, KB, or -1 if the
+   * system doesn't say
+   *
+   */
+
+  private static long peakRssKB()
+
+  {
+    File status = new File("/proc/self/status");
+    if (!status.exists()) {
+      return -1;
+    }
+    try {
+      BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(status)));
+      try {
+        String line;
+        while ((line = br.readLine()) != null) {
+          if (line.startsWith("VmHWM:")) {
+            return Long.parseLong(line.substring(6).replace("kB", "").trim());
+          }
+        }
+      } finally {
+        br.close();
+      }
+    } catch (IOException e) {
+      // fall through
+    } catch (NumberFormatException e) {
+      // fall through
+    }
+    return -1;
+  }
+
+  /**
+   *
+   * run the matrix, or with -RUN one conversion of it
+   *
+   */
+
+  public static void main(String [] args)
+    throws Exception
+
+  {
+    if (args.length > 0 && args[0].equals("-RUN")) {
+      child(args);
+      System.exit(0);
+    }
+
+    ConvertBench cb = new ConvertBench();
+    String out = null;
+    String baseline = null;
+    String tag = "unlabeled";
+
+    // matched at the start: -WITH and -JVM carry other options
+    for (int i = 0; i < args.length; i++) {
+      try {
+        if (args[i].startsWith("-LINES")) {
+          cb.numLines = Math.max(1, Integer.parseInt(args[i].substring(6)));
+        }
+        if (args[i].startsWith("-ELEMS")) {
+          cb.numElems = Math.max(1, Integer.parseInt(args[i].substring(6)));
+        }
+        if (args[i].startsWith("-REPEAT")) {
+          cb.repeat = Math.max(1, Integer.parseInt(args[i].substring(7)));
+        }
+        if (args[i].startsWith("-THRESHOLD")) {
+          cb.threshold = Double.parseDouble(args[i].substring(10));
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("bad option " + args[i] + ", default kept");
+      }
+      if (args[i].startsWith("-ONLY")) {
+        cb.only = args[i].substring(5);
+      }
+      if (args[i].startsWith("-WITH")) {
+        cb.with.add(args[i].substring(5));
+      }
+      if (args[i].startsWith("-JVM")) {
+        cb.jvm.add(args[i].substring(4));
+      }
+      if (args[i].startsWith("-OUT")) {
+        out = args[i].substring(4);
+      }
+      if (args[i].startsWith("-BASELINE")) {
+        baseline = args[i].substring(9);
+      }
+      if (args[i].startsWith("-TAG")) {
+        tag = args[i].substring(4);
+      }
+      if (args[i].startsWith("-IMAGER")) {
+        cb.imager = args[i].substring(7);
+      }
+      if (args[i].startsWith("-SOUNDER")) {
+        cb.sounder = args[i].substring(8);
+      }
+    }
+
+    File dir = Bench.tempDir();
+    try {
+      cb.runAll(dir);
+    } finally {
+      Bench.delete(dir);
+    }
+
+    if (out != null) {
+      cb.writeJson(out, tag);
+      System.out.println("results written to " + out);
+    }
+    if (baseline != null && cb.compare(baseline) > 0) {
+      System.exit(1);
+    }
+  }
+
+}
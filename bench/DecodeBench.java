@@ -0,0 +1,160 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * DecodeBench times SensorData.nextLine, one line per op, for each
+ * data width in both byte orders, from a mapped file and from a
+ * stream, widened to floats and at native width; and
+ * ConversionUtility.swap over a nav block.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class DecodeBench {
+
+  private static final int LINES = 512;
+  private static final int ELEMS = 2048;
+
+  /**
+   *
+   * add the cases
+   *
+   */
+
+  static void add(Bench b, File dir)
+
+  {
+    int [] widths = {1, 2, 4};
+    boolean [] orders = {false, true};
+    String [] sources = {"mapped", "stream"};
+    String [] outs = {"float", "native"};
+    for (int w = 0; w < widths.length; w++) {
+      for (int o = 0; o < orders.length; o++) {
+        for (int s = 0; s < sources.length; s++) {
+          for (int t = 0; t < outs.length; t++) {
+            b.add(new LineCase(dir, widths[w], orders[o], sources[s], outs[t]));
+          }
+        }
+      }
+    }
+
+    b.add(new Bench.Case("decode.swap", "words=640", "blocks") {
+      int [] block = new int[640];
+      long op() {
+        ConversionUtility.swap(block, 1, block.length - 1);
+        return block[1];
+      }
+    });
+  }
+
+  /**
+   *
+   * LineCase decodes the lines of one image over and over
+   *
+   */
+
+  static class LineCase extends Bench.Case {
+
+    private File dir;
+    private int dw;
+    private boolean swapped;
+    private boolean stream;
+    private boolean widen;
+
+    private ScienceImage si;
+    private AncillaryData ad;
+    private byte [] bytes;
+    private SensorData sd;
+    private int left = 0;
+
+    private float [] floats = new float[ELEMS];
+    private byte [] byteLine = new byte[ELEMS];
+    private short [] shortLine = new short[ELEMS];
+    private int [] intLine = new int[ELEMS];
+
+    LineCase(File Dir, int Dw, boolean Swapped, String Source, String Out)
+
+    {
+      super("decode.line", "dw=" + Dw + ",swapped=" + Swapped +
+        ",source=" + Source + ",to=" + Out, "lines");
+      dir = Dir;
+      dw = Dw;
+      swapped = Swapped;
+      stream = Source.equals("stream");
+      widen = Out.equals("float");
+    }
+
+    void setUp()
+      throws Exception
+
+    {
+      File f = new File(dir, "decode" + dw + (swapped ? "s" : "") + ".area");
+      if (!f.exists()) {
+        SyntheticArea sa = new SyntheticArea();
+        sa.setSize(LINES, ELEMS);
+        sa.setDataWidth(dw);
+        sa.setSwapped(swapped);
+        sa.write(f);
+      }
+      si = new ScienceImage(f.getPath());
+      ad = si.getAD();
+      if (stream) {
+        bytes = Files.readAllBytes(f.toPath());
+      }
+    }
+
+    /**
+     *
+     * start over at the first line
+     *
+     */
+
+    private void reopen()
+
+    {
+      if (stream) {
+        int off = ad.getDataOffset();
+        sd = new SensorData(new DataInputStream(
+          new ByteArrayInputStream(bytes, off, bytes.length - off)), ad);
+      } else {
+        sd = new SensorData(si.getMAF(), ad);
+      }
+      left = LINES;
+    }
+
+    long op()
+      throws Exception
+
+    {
+      if (left == 0) {
+        reopen();
+      }
+      left--;
+      if (widen) {
+        sd.nextLine(floats);
+        return (long) floats[ELEMS - 1];
+      } else if (dw == 1) {
+        sd.nextLine(byteLine);
+        return byteLine[ELEMS - 1];
+      } else if (dw == 2) {
+        sd.nextLine(shortLine);
+        return shortLine[ELEMS - 1];
+      } else {
+        sd.nextLine(intLine);
+        return intLine[ELEMS - 1];
+      }
+    }
+
+    void tearDown()
+      throws Exception
+
+    {
+      si.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,136 @@
+import java.io.File;
+import java.util.Arrays;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * NavigateBench times navigation of one full image line per op, for
+ * each projection the synthetic images can carry (Lambert conformal,
+ * Mercator, polar stereographic): exactly, through the bulk
+ * Navigator.toLatLon, and interpolated from a NavGrid.  -AREA adds
+ * the same cases for a real image's navigation, so GVAR and GEOS can
+ * be timed.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class NavigateBench {
+
+  private static final int LINES = 512;
+  private static final int ELEMS = 2048;
+
+  // interpolation error allowed for the grid cases, km
+  private static final float GRID_KM = 1.0f;
+
+  /**
+   *
+   * add the cases
+   *
+   * @param b           Bench to add to
+   * @param dir         scratch directory
+   * @param area        real area file, or null
+   *
+   */
+
+  static void add(Bench b, File dir, String area)
+
+  {
+    String [] names = {"LAMB", "MERC", "PS"};
+    String [] methods = {"exact", "grid"};
+    for (int p = 0; p < names.length; p++) {
+      for (int m = 0; m < methods.length; m++) {
+        b.add(new LineCase(dir, null, names[p], methods[m]));
+      }
+    }
+    if (area != null) {
+      for (int m = 0; m < methods.length; m++) {
+        b.add(new LineCase(dir, area, "file", methods[m]));
+      }
+    }
+  }
+
+  /**
+   *
+   * LineCase navigates the lines of one image in turn
+   *
+   */
+
+  static class LineCase extends Bench.Case {
+
+    private File dir;
+    private String area;
+    private String proj;
+    private boolean grid;
+
+    private Navigator n;
+    private NavGrid ng;
+    private int numLines;
+    private int line = 0;
+    private double [] lines;
+    private double [] elems;
+    private float [] lats;
+    private float [] lons;
+
+    LineCase(File Dir, String Area, String Proj, String Method)
+
+    {
+      super("navigate", "projection=" + Proj + ",method=" + Method, "lines");
+      dir = Dir;
+      area = Area;
+      proj = Proj;
+      grid = Method.equals("grid");
+    }
+
+    void setUp()
+      throws Exception
+
+    {
+      String fileName = area;
+      if (fileName == null) {
+        File f = new File(dir, "nav" + proj + ".area");
+        if (!f.exists()) {
+          SyntheticArea sa = new SyntheticArea();
+          sa.setSize(LINES, ELEMS);
+          sa.setDataWidth(1);
+          sa.setNav(proj);
+          sa.write(f);
+        }
+        fileName = f.getPath();
+      }
+      ScienceImage si = new ScienceImage(fileName);
+      AncillaryData ad = si.getAD();
+      n = si.getN();
+      if (n == null) {
+        throw new Exception(fileName + ": no navigation");
+      }
+      si.close();
+
+      numLines = ad.getNumLines();
+      int ne = ad.getNumElements();
+      lines = new double[ne];
+      elems = new double[ne];
+      for (int e = 0; e < ne; e++) {
+        elems[e] = e;
+      }
+      lats = new float[ne];
+      lons = new float[ne];
+      if (grid) {
+        ng = new NavGrid(n, new ImageWindow(ad), GRID_KM);
+      }
+    }
+
+    long op()
+
+    {
+      if (grid) {
+        ng.fill(line, lats, lons);
+      } else {
+        Arrays.fill(lines, line);
+        n.toLatLon(lines, elems, 0, elems.length, lats, lons);
+      }
+      line = (line + 1) % numLines;
+      return Float.floatToRawIntBits(lats[lats.length / 2]);
+    }
+
+  }
+
+}
@@ -0,0 +1,842 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * SyntheticArea writes McIDAS area files of any size for scale and
+ * performance testing: the directory (lines, elements, bands, data
+ * width, line prefix, byte order, sensor, start and resolution), a
+ * nav block for any of the projections the converter knows, an
+ * optional cal block, and counts in one of several patterns.
+ *
+ *   random     counts from a seeded generator
+ *   gradient   counts rising along lines and elements
+ *   checker    32 pixel squares of the lowest and highest count
+ *   disk       a round, textured earth on a black space background,
+ *              as in a full disk image
+ *   constant   one count everywhere
+ *
+ * Every line is made from the parameters and the seed alone, so the
+ * same parameters always give the same file, byte for byte, however
+ * many threads write it.  Lines are generated in chunks by several
+ * threads and written at their own offsets, so multi-GB full disk
+ * sized files take about as long as the disk needs to take them.
+ *
+ * LAMB, MERC and PS nav blocks are laid out to cover the image.  The
+ * GVAR block is a nominal satellite at 75 W, with no orbit or
+ * attitude terms, and the GEOS block has the projection word only;
+ * for real GVAR or GEOS navigation and calibration, take the nav and
+ * cal blocks (with the sensor, date, time, start and resolution they
+ * go with) from a real file with -BLOCKSFROM.
+ *
+ *   java SyntheticArea <file> [-LINES<n>] [-ELEMS<n>]
+ *     [-BANDS<band>[,<band>...]] [-WIDTH<1|2|4>] [-PREFIX<bytes>]
+ *     [-SWAP] [-SENSOR<id>] [-START<line>,<elem>] [-RES<line>,<elem>]
+ *     [-NAV<GVAR|GEOS|LAMB|MERC|PS>] [-BLOCKSFROM<area file>]
+ *     [-PATTERN<name>[,<count>]] [-BITS<n>] [-SEED<n>] [-THREADS<n>]
+ *
+ * A GOES imager full disk at 1 km, say, is
+ *
+ *   java SyntheticArea disk.area -LINES10848 -ELEMS20836 -WIDTH2
+ *     -NAVGVAR -PATTERNdisk
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class SyntheticArea {
+
+  // block sizes, words
+  private static final int DIR_WORDS = 64;
+  private static final int NAV_WORDS = 640;
+
+  // lines generated by a thread at a time
+  private static final int CHUNK_LINES = 64;
+
+  // size of a checker square, pixels
+  private static final int CHECKER = 32;
+
+  // GVAR nav words ScienceImage byte swaps; the rest are text
+  private static final int [][] GVAR_SWAPPED =
+    {{2, 126}, {129, 254}, {257, 382}, {385, 510}, {513, 638}};
+
+  // nominal GVAR reference longitude, 75 W, radians * 10^7
+  private static final int GVAR_LON = -13089969;
+
+  public static final String [] PATTERNS =
+    {"random", "gradient", "checker", "disk", "constant"};
+
+  public static final String [] PROJECTIONS =
+    {"GVAR", "GEOS", "LAMB", "MERC", "PS"};
+
+  private int numLines = 1000;
+  private int numElems = 1000;
+  private int [] bands = {1};
+  private int dw = 2;
+  private int prefixSize = 0;
+  private boolean swapped = false;
+  private int sensorId = 70;
+  private int date = 2026291;
+  private int time = 120000;
+  private int calType = magic("RAW ");
+  private int startLine = 1;
+  private int startElem = 1;
+  private int lineRes = 1;
+  private int elemRes = 1;
+  private String proj = null;
+  private int [] navBlock = null;
+  private int [] calBlock = null;
+  private int pattern = 0;
+  private int value = 0;
+  private int bits = 0;
+  private long seed = 1L;
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   *
+   * set the image size
+   *
+   * @param Lines       number of lines
+   * @param Elems       number of elements
+   *
+   */
+
+  public void setSize(int Lines, int Elems)
+
+  {
+    if (Lines < 1 || Elems < 1) {
+      throw new IllegalArgumentException("image must have lines and elements");
+    }
+    numLines = Lines;
+    numElems = Elems;
+  }
+
+  /**
+   *
+   * set the bands (channel numbers, 1 to 32) in the image
+   *
+   * @param Bands       band numbers, in file order
+   *
+   */
+
+  public void setBands(int [] Bands)
+
+  {
+    if (Bands.length < 1) {
+      throw new IllegalArgumentException("image must have a band");
+    }
+    for (int i = 0; i < Bands.length; i++) {
+      if (Bands[i] < 1 || Bands[i] > 32) {
+        throw new IllegalArgumentException("band " + Bands[i] + " not in 1 to 32");
+      }
+    }
+    bands = Bands.clone();
+  }
+
+  /**
+   *
+   * set the data width
+   *
+   * @param Dw          bytes per count: 1, 2 or 4
+   *
+   */
+
+  public void setDataWidth(int Dw)
+
+  {
+    if (Dw != 1 && Dw != 2 && Dw != 4) {
+      throw new IllegalArgumentException("data width must be 1, 2 or 4");
+    }
+    dw = Dw;
+  }
+
+  /**
+   *
+   * set the line prefix size; prefixes are written as zeros
+   *
+   * @param Bytes       prefix bytes per line
+   *
+   */
+
+  public void setPrefixSize(int Bytes)
+
+  {
+    if (Bytes < 0 || (Bytes & 3) != 0) {
+      throw new IllegalArgumentException("prefix must be whole words");
+    }
+    prefixSize = Bytes;
+  }
+
+  /**
+   *
+   * set the byte order
+   *
+   * @param Swapped     true for little endian, as written on x86
+   *
+   */
+
+  public void setSwapped(boolean Swapped)
+
+  {
+    swapped = Swapped;
+  }
+
+  /**
+   *
+   * set the sensor source number
+   *
+   * @param Id          McIDAS sensor source number
+   *
+   */
+
+  public void setSensorId(int Id)
+
+  {
+    sensorId = Id;
+  }
+
+  /**
+   *
+   * set the image's first line and element, satellite coordinates
+   *
+   * @param Line        start line
+   * @param Elem        start element
+   *
+   */
+
+  public void setStart(int Line, int Elem)
+
+  {
+    startLine = Line;
+    startElem = Elem;
+  }
+
+  /**
+   *
+   * set the line and element resolution
+   *
+   * @param Line        line resolution
+   * @param Elem        element resolution
+   *
+   */
+
+  public void setRes(int Line, int Elem)
+
+  {
+    if (Line < 1 || Elem < 1) {
+      throw new IllegalArgumentException("resolution must be positive");
+    }
+    lineRes = Line;
+    elemRes = Elem;
+  }
+
+  /**
+   *
+   * give the image a made up nav block for a projection; LAMB, MERC
+   * and PS blocks are sized to the image when it is written
+   *
+   * @param Proj        one of PROJECTIONS, or null for none
+   *
+   */
+
+  public void setNav(String Proj)
+
+  {
+    if (Proj != null && index(PROJECTIONS, Proj) < 0) {
+      throw new IllegalArgumentException("projection " + Proj + " not known");
+    }
+    proj = (Proj != null) ? PROJECTIONS[index(PROJECTIONS, Proj)] : null;
+    navBlock = null;
+  }
+
+  /**
+   *
+   * give the image a nav block as is
+   *
+   * @param NavBlock    nav block, first word the projection
+   *
+   */
+
+  public void setNavBlock(int [] NavBlock)
+
+  {
+    proj = null;
+    navBlock = NavBlock;
+  }
+
+  /**
+   *
+   * give the image a cal block as is
+   *
+   * @param CalBlock    cal block, or null for none
+   *
+   */
+
+  public void setCalBlock(int [] CalBlock)
+
+  {
+    calBlock = CalBlock;
+  }
+
+  /**
+   *
+   * take the sensor, date, time, start, resolution, calibration
+   * type, nav block and cal block from a real area file
+   *
+   * @param fileName    area file
+   *
+   */
+
+  public void setBlocksFrom(String fileName)
+    throws IOException
+
+  {
+    ScienceImage si = new ScienceImage(fileName);
+    si.close();
+    AncillaryData ad = si.getAD();
+    sensorId = ad.getSensorId();
+    date = ad.getImageDate();
+    time = ad.getImageTime();
+    calType = ad.getCalType();
+    startLine = ad.getStartLine();
+    startElem = ad.getStartElem();
+    lineRes = ad.getLineRes();
+    elemRes = ad.getElemRes();
+    setNavBlock(si.getNavBlock());
+    calBlock = si.getCalBlock();
+  }
+
+  /**
+   *
+   * set the pattern of counts
+   *
+   * @param Name        one of PATTERNS
+   * @param Value       count for constant
+   *
+   */
+
+  public void setPattern(String Name, int Value)
+
+  {
+    int p = index(PATTERNS, Name);
+    if (p < 0) {
+      throw new IllegalArgumentException("pattern " + Name + " not known");
+    }
+    pattern = p;
+    value = Value;
+  }
+
+  /**
+   *
+   * set the significant bits of the counts; 0, the default, is 8 for
+   * 1 byte data, 10 (as GVAR has) for 2 and 16 for 4
+   *
+   * @param Bits        bits per count
+   *
+   */
+
+  public void setBits(int Bits)
+
+  {
+    bits = Bits;
+  }
+
+  /**
+   *
+   * set the seed of the random and disk patterns
+   *
+   * @param Seed        seed
+   *
+   */
+
+  public void setSeed(long Seed)
+
+  {
+    seed = Seed;
+  }
+
+  /**
+   *
+   * set the number of threads generating lines
+   *
+   * @param Threads     threads
+   *
+   */
+
+  public void setThreads(int Threads)
+
+  {
+    threads = Math.max(1, Threads);
+  }
+
+  /**
+   *
+   * return the bytes in one line, prefix included
+   *
+   */
+
+  public long getLineBytes()
+
+  {
+    return prefixSize + (long) numElems * bands.length * dw;
+  }
+
+  /**
+   *
+   * write the file
+   *
+   * @param f           file to write
+   *
+   * @return            file size, bytes
+   *
+   */
+
+  public long write(File f)
+    throws IOException
+
+  {
+    final ByteOrder order = swapped ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    int [] nav = (proj != null) ? navBlock(proj) : navBlock;
+    int navBytes = (nav != null) ? 4 * nav.length : 0;
+    int calBytes = (calBlock != null) ? 4 * calBlock.length : 0;
+    final long dataOffset = 4 * DIR_WORDS + navBytes + calBytes;
+    final long lineBytes = getLineBytes();
+    if (lineBytes * CHUNK_LINES > Integer.MAX_VALUE) {
+      throw new IOException("lines of " + lineBytes + " bytes are too long");
+    }
+    long size = dataOffset + lineBytes * numLines;
+
+    int [] dir = new int[DIR_WORDS];
+    dir[1] = 4;
+    dir[2] = sensorId;
+    dir[3] = date;
+    dir[4] = time;
+    dir[5] = startLine;
+    dir[6] = startElem;
+    dir[8] = numLines;
+    dir[9] = numElems;
+    dir[10] = dw;
+    dir[11] = lineRes;
+    dir[12] = elemRes;
+    dir[13] = bands.length;
+    dir[14] = prefixSize;
+    dir[16] = date;
+    dir[17] = time;
+    for (int i = 0; i < bands.length; i++) {
+      dir[18] |= 1 << (bands[i] - 1);
+    }
+    dir[33] = (int) dataOffset;
+    dir[34] = (nav != null) ? 4 * DIR_WORDS : 0;
+    dir[52] = calType;
+    dir[62] = (calBlock != null) ? 4 * DIR_WORDS + navBytes : 0;
+
+    ByteBuffer hb = ByteBuffer.allocate((int) dataOffset);
+    hb.order(order);
+    for (int i = 0; i < DIR_WORDS; i++) {
+      hb.putInt(dir[i]);
+    }
+    for (int i = 0; nav != null && i < nav.length; i++) {
+      putWord(hb, nav[i], isText(nav, i));
+    }
+    for (int i = 0; calBlock != null && i < calBlock.length; i++) {
+      putWord(hb, calBlock[i], i == 0);
+    }
+    hb.flip();
+
+    RandomAccessFile raf = new RandomAccessFile(f, "rw");
+    try {
+      raf.setLength(size);
+      final FileChannel fc = raf.getChannel();
+      writeFully(fc, hb, 0L);
+
+      final int numChunks = (numLines + CHUNK_LINES - 1) / CHUNK_LINES;
+      final AtomicInteger next = new AtomicInteger(0);
+      final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+      Thread [] t = new Thread[Math.min(threads, numChunks)];
+      for (int i = 0; i < t.length; i++) {
+        t[i] = new Thread(new Runnable() {
+          public void run() {
+            ByteBuffer bb = ByteBuffer.allocateDirect((int) (lineBytes * CHUNK_LINES));
+            bb.order(order);
+            int [] counts = new int[numElems * bands.length];
+            int c;
+            try {
+              while (failure.get() == null &&
+                     (c = next.getAndIncrement()) < numChunks) {
+                int first = c * CHUNK_LINES;
+                int last = Math.min(first + CHUNK_LINES, numLines);
+                bb.clear();
+                for (int l = first; l < last; l++) {
+                  fillLine(bb, l, counts);
+                }
+                bb.flip();
+                writeFully(fc, bb, dataOffset + lineBytes * first);
+              }
+            } catch (Exception e) {
+              failure.compareAndSet(null, e);
+            }
+          }
+        }, "synthetic-area-" + i);
+        t[i].start();
+      }
+      for (int i = 0; i < t.length; i++) {
+        try {
+          t[i].join();
+        } catch (InterruptedException e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+      if (failure.get() != null) {
+        throw new IOException("can't write " + f, failure.get());
+      }
+    } finally {
+      raf.close();
+    }
+    return size;
+  }
+
+  /**
+   *
+   * write a buffer at a file position
+   *
+   */
+
+  private static void writeFully(FileChannel fc, ByteBuffer bb, long pos)
+    throws IOException
+
+  {
+    while (bb.hasRemaining()) {
+      pos += fc.write(bb, pos);
+    }
+  }
+
+  /**
+   *
+   * put a block word; text stays big endian whatever the byte order
+   *
+   */
+
+  private static void putWord(ByteBuffer bb, int word, boolean text)
+
+  {
+    if (text) {
+      ByteOrder order = bb.order();
+      bb.order(ByteOrder.BIG_ENDIAN);
+      bb.putInt(word);
+      bb.order(order);
+    } else {
+      bb.putInt(word);
+    }
+  }
+
+  /**
+   *
+   * return true if a nav block word is text, which ScienceImage
+   * doesn't swap
+   *
+   */
+
+  private static boolean isText(int [] nav, int i)
+
+  {
+    if (i == 0) {
+      return true;
+    }
+    if (nav[0] != magic("GVAR")) {
+      return false;
+    }
+    for (int r = 0; r < GVAR_SWAPPED.length; r++) {
+      if (i >= GVAR_SWAPPED[r][0] && i <= GVAR_SWAPPED[r][1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   *
+   * return a made up nav block for a projection, for this image size
+   *
+   */
+
+  private int [] navBlock(String Proj)
+
+  {
+    int [] nb = new int[NAV_WORDS];
+    if (Proj.equals("GVAR")) {
+      nb[0] = magic("GVAR");
+      nb[5] = GVAR_LON;
+    } else if (Proj.equals("GEOS")) {
+      nb[0] = magic("GEOS");
+    } else if (Proj.equals("LAMB")) {
+      // true at 25 and 60 N, 95 W up, pole well above the image
+      nb[0] = magic("LAMB");
+      nb[1] = 2 * numLines;
+      nb[2] = numElems;
+      nb[3] = 250000;
+      nb[4] = 600000;
+      nb[5] = 4000;
+      nb[6] = 950000;
+      nb[7] = 6371100;
+      nb[11] = 900000;
+    } else if (Proj.equals("MERC")) {
+      // true at 20 N, 90 W at the center, equator below the image
+      nb[0] = magic("MERC");
+      nb[1] = 3 * numLines;
+      nb[2] = numElems / 2;
+      nb[3] = 200000;
+      nb[4] = 4000;
+      nb[5] = 900000;
+      nb[6] = 6371100;
+    } else {
+      // true at 60 N, 105 W up, pole above the image
+      nb[0] = magic("PS  ");
+      nb[1] = -numLines;
+      nb[2] = numElems / 2;
+      nb[3] = 600000;
+      nb[4] = 4000;
+      nb[5] = 1050000;
+      nb[6] = 6371100;
+    }
+    return nb;
+  }
+
+  /**
+   *
+   * generate one line into a buffer
+   *
+   * @param bb          buffer, in the file's byte order
+   * @param l           line
+   * @param v           scratch space for the line's counts
+   *
+   */
+
+  private void fillLine(ByteBuffer bb, int l, int [] v)
+
+  {
+    int nb = bands.length;
+    int n = numElems * nb;
+    int b = (bits > 0) ? Math.min(bits, 8 * dw) : (dw == 1) ? 8 : (dw == 2) ? 10 : 16;
+    int mask = (b >= 32) ? -1 : (1 << b) - 1;
+    long x = mix(seed + (l + 1) * 0x9E3779B97F4A7C15L);
+
+    switch (pattern) {
+      case 0:
+        for (int i = 0; i < n; i++) {
+          x ^= x >>> 12;
+          x ^= x << 25;
+          x ^= x >>> 27;
+          v[i] = (int) ((x * 0x2545F4914F6CDD1DL) >>> 32);
+        }
+        break;
+      case 1:
+        for (int e = 0, i = 0; e < numElems; e++) {
+          int g = (int) ((long) (l + e) * mask / (numLines + numElems));
+          for (int k = 0; k < nb; k++) {
+            v[i++] = g + 64 * k;
+          }
+        }
+        break;
+      case 2:
+        for (int e = 0, i = 0; e < numElems; e++) {
+          for (int k = 0; k < nb; k++) {
+            v[i++] = (((l / CHECKER + e / CHECKER + k) & 1) == 0) ? mask : 0;
+          }
+        }
+        break;
+      case 3:
+        // the disk covers elements d0 to d1 of this line
+        int d0 = numElems;
+        int d1 = -1;
+        double r = 0.48d * Math.min(numLines, numElems);
+        double dy = l + 0.5d - numLines / 2.0d;
+        if (Math.abs(dy) < r) {
+          double half = Math.sqrt(r * r - dy * dy);
+          d0 = (int) Math.max(0, Math.ceil(numElems / 2.0d - half));
+          d1 = (int) Math.min(numElems - 1, Math.floor(numElems / 2.0d + half));
+        }
+        // bright, with texture, so nothing compresses away
+        long range = (mask >>> 1) + (long) (mask >>> 2) + 1;
+        Arrays.fill(v, 0);
+        for (int i = d0 * nb; i < (d1 + 1) * nb; i++) {
+          x ^= x >>> 12;
+          x ^= x << 25;
+          x ^= x >>> 27;
+          v[i] = (mask >>> 2) + (int) ((((x * 0x2545F4914F6CDD1DL) >>> 32) * range) >>> 32);
+        }
+        break;
+      default:
+        Arrays.fill(v, value);
+        break;
+    }
+
+    for (int i = 0; i < prefixSize; i++) {
+      bb.put((byte) 0);
+    }
+    if (dw == 1) {
+      for (int i = 0; i < n; i++) {
+        bb.put((byte) (v[i] & mask));
+      }
+    } else if (dw == 2) {
+      for (int i = 0; i < n; i++) {
+        bb.putShort((short) (v[i] & mask));
+      }
+    } else {
+      for (int i = 0; i < n; i++) {
+        bb.putInt(v[i] & mask);
+      }
+    }
+  }
+
+  /**
+   *
+   * scramble a seed into a generator state, never zero
+   *
+   */
+
+  private static long mix(long z)
+
+  {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    z = z ^ (z >>> 31);
+    return (z == 0) ? 1L : z;
+  }
+
+  /**
+   *
+   * return a 4 character name as a nav or cal type word
+   *
+   */
+
+  static int magic(String s)
+
+  {
+    int m = 0;
+    for (int i = 0; i < 4; i++) {
+      m = (m << 8) | (s.charAt(i) & 0xff);
+    }
+    return m;
+  }
+
+  /**
+   *
+   * return the index of a name in a list, or -1
+   *
+   */
+
+  private static int index(String [] names, String name)
+
+  {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   *
+   * write a file from the command line
+   *
+   */
+
+  public static void main(String [] args)
+    throws Exception
+
+  {
+    if (args.length < 1 || args[0].startsWith("-")) {
+      System.out.println("usage: java SyntheticArea <file> [-LINES<n>] [-ELEMS<n>]");
+      System.out.println("  [-BANDS<band>[,<band>...]] [-WIDTH<1|2|4>] [-PREFIX<bytes>]");
+      System.out.println("  [-SWAP] [-SENSOR<id>] [-START<line>,<elem>] [-RES<line>,<elem>]");
+      System.out.println("  [-NAV<GVAR|GEOS|LAMB|MERC|PS>] [-BLOCKSFROM<area file>]");
+      System.out.println("  [-PATTERN<random|gradient|checker|disk|constant>[,<count>]]");
+      System.out.println("  [-BITS<n>] [-SEED<n>] [-THREADS<n>]");
+      return;
+    }
+
+    SyntheticArea sa = new SyntheticArea();
+    int lines = 1000;
+    int elems = 1000;
+
+    // blocks from a real file first, so the options below override
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].indexOf("-BLOCKSFROM") >= 0) {
+        sa.setBlocksFrom(args[i].substring(11));
+      }
+    }
+
+    for (int i = 1; i < args.length; i++) {
+      try {
+        if (args[i].indexOf("-LINES") >= 0) {
+          lines = Integer.parseInt(args[i].substring(6));
+        }
+        if (args[i].indexOf("-ELEMS") >= 0) {
+          elems = Integer.parseInt(args[i].substring(6));
+        }
+        if (args[i].indexOf("-BANDS") >= 0) {
+          String [] s = args[i].substring(6).split(",");
+          int [] b = new int[s.length];
+          for (int j = 0; j < s.length; j++) {
+            b[j] = Integer.parseInt(s[j].trim());
+          }
+          sa.setBands(b);
+        }
+        if (args[i].indexOf("-WIDTH") >= 0) {
+          sa.setDataWidth(Integer.parseInt(args[i].substring(6)));
+        }
+        if (args[i].indexOf("-PREFIX") >= 0) {
+          sa.setPrefixSize(Integer.parseInt(args[i].substring(7)));
+        }
+        if (args[i].indexOf("-SWAP") >= 0) {
+          sa.setSwapped(true);
+        }
+        if (args[i].indexOf("-SENSOR") >= 0) {
+          sa.setSensorId(Integer.parseInt(args[i].substring(7)));
+        }
+        if (args[i].indexOf("-START") >= 0) {
+          String [] s = args[i].substring(6).split(",");
+          sa.setStart(Integer.parseInt(s[0].trim()), Integer.parseInt(s[1].trim()));
+        }
+        if (args[i].indexOf("-RES") >= 0) {
+          String [] s = args[i].substring(4).split(",");
+          sa.setRes(Integer.parseInt(s[0].trim()), Integer.parseInt(s[1].trim()));
+        }
+        if (args[i].indexOf("-NAV") >= 0) {
+          sa.setNav(args[i].substring(4));
+        }
+        if (args[i].indexOf("-PATTERN") >= 0) {
+          String [] s = args[i].substring(8).split(",");
+          sa.setPattern(s[0], (s.length > 1) ? Integer.parseInt(s[1].trim()) : 0);
+        }
+        if (args[i].indexOf("-BITS") >= 0) {
+          sa.setBits(Integer.parseInt(args[i].substring(5)));
+        }
+        if (args[i].indexOf("-SEED") >= 0) {
+          sa.setSeed(Long.parseLong(args[i].substring(5)));
+        }
+        if (args[i].indexOf("-THREADS") >= 0) {
+          sa.setThreads(Integer.parseInt(args[i].substring(8)));
+        }
+      } catch (RuntimeException e) {
+        System.out.println("bad option " + args[i] + ": " + e.getMessage());
+        return;
+      }
+    }
+    sa.setSize(lines, elems);
+
+    long t0 = System.currentTimeMillis();
+    long size = sa.write(new File(args[0]));
+    double secs = Math.max(1, System.currentTimeMillis() - t0) / 1000.0d;
+    System.out.println(String.format("wrote %s: %d lines, %.1f MB in %.1f s, %.1f MB/s",
+      args[0], lines, size / 1.0e6d, secs, size / 1.0e6d / secs));
+  }
+
+}
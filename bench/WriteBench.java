@@ -0,0 +1,143 @@
+import java.io.File;
+import ucar.multiarray.ArrayMultiArray;
+import ucar.netcdf.Dimension;
+import ucar.netcdf.NetcdfFile;
+import ucar.netcdf.ProtoVariable;
+import ucar.netcdf.Schema;
+import ucar.netcdf.Variable;
+
+/**
+ * WriteBench times storing one image line per op in a NetCDF file
+ * laid out as the converter lays it out, through Variable.copyin and
+ * through SlabWriter, for float, short and byte lines.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class WriteBench {
+
+  private static final int LINES = 512;
+  private static final int ELEMS = 2048;
+
+  /**
+   *
+   * add the cases
+   *
+   */
+
+  static void add(Bench b, File dir)
+
+  {
+    String [] types = {"float", "short", "byte"};
+    String [] writers = {"copyin", "slab"};
+    for (int t = 0; t < types.length; t++) {
+      for (int w = 0; w < writers.length; w++) {
+        b.add(new LineCase(dir, types[t], writers[w]));
+      }
+    }
+  }
+
+  /**
+   *
+   * LineCase writes the lines of one image variable in turn
+   *
+   */
+
+  static class LineCase extends Bench.Case {
+
+    private File dir;
+    private String type;
+    private boolean slab;
+
+    private NetcdfFile nf;
+    private Variable v;
+    private SlabWriter sw;
+    private SlabWriter.Var sv;
+    private int line = 0;
+    private float [][][] floats = new float[1][1][ELEMS];
+    private short [][][] shorts = new short[1][1][ELEMS];
+    private byte [][][] bytes = new byte[1][1][ELEMS];
+
+    LineCase(File Dir, String Type, String Writer)
+
+    {
+      super("write", "type=" + Type + ",writer=" + Writer, "lines");
+      dir = Dir;
+      type = Type;
+      slab = Writer.equals("slab");
+    }
+
+    void setUp()
+      throws Exception
+
+    {
+      for (int e = 0; e < ELEMS; e++) {
+        floats[0][0][e] = 200.0f + e * 0.01f;
+        shorts[0][0][e] = (short) e;
+        bytes[0][0][e] = (byte) e;
+      }
+
+      Class c = type.equals("float") ? Float.TYPE :
+        type.equals("short") ? Short.TYPE : Byte.TYPE;
+      Dimension[] dims = {
+        new Dimension("numbands", 1),
+        new Dimension("lines", LINES),
+        new Dimension("elements", ELEMS)
+      };
+      Schema schema = new Schema();
+      ProtoVariable image = new ProtoVariable("image", c, dims);
+      schema.put(image);
+
+      String fileName = new File(dir, "write-" + type + (slab ? "-slab" : "") + ".nc").getPath();
+      nf = new NetcdfFile(fileName, true, true, schema);
+      if (slab) {
+        nf.close();
+        nf = null;
+        sw = new SlabWriter(fileName);
+        sv = sw.get("image");
+      } else {
+        v = nf.get("image");
+      }
+    }
+
+    long op()
+      throws Exception
+
+    {
+      if (slab) {
+        if (type.equals("float")) {
+          sv.put(line, floats);
+        } else if (type.equals("short")) {
+          sv.put(line, shorts);
+        } else {
+          sv.put(line, bytes);
+        }
+      } else {
+        int [] origin = {0, line, 0};
+        if (type.equals("float")) {
+          v.copyin(origin, new ArrayMultiArray(floats));
+        } else if (type.equals("short")) {
+          v.copyin(origin, new ArrayMultiArray(shorts));
+        } else {
+          v.copyin(origin, new ArrayMultiArray(bytes));
+        }
+      }
+      line = (line + 1) % LINES;
+      return line;
+    }
+
+    void tearDown()
+      throws Exception
+
+    {
+      if (sw != null) {
+        sw.close();
+      }
+      if (nf != null) {
+        nf.close();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,7 @@
+@setlocal
+@echo Build and run the AreaToNetCDF benchmarks....
+set classpath=.\classes;c:\repos\visad\visad.jar
+if not exist classes mkdir classes
+javac -d classes ..\*.java *.java
+
+java Bench %*
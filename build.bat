@@ -3,6 +3,12 @@
 set classpath=.\;c:\repos\visad\visad.jar
 javac *.java
 
+@echo Run the tests....
+if not exist test\classes mkdir test\classes
+javac -d test\classes test\*.java
+java -cp test\classes;%classpath% TestRunner
+if errorlevel 1 exit /b 1
+
 pause ************  Now Ready to make the JAR file...
 del AreaToNetCDF.jar
 jar -cvfm AreaToNetCDF.jar aton.manifest *.class
@@ -0,0 +1,233 @@
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * GridMappingTest checks that the 2-D lats/lons can be rebuilt from
+ * the 1-D x/y coordinates of a grid mapping to within a quarter of a
+ * pixel, at every pixel, for Lambert conformal, Mercator and polar
+ * stereographic images in both hemispheres.  Each image is tried
+ * whole, through a window with a line/element offset, and reduced by
+ * -REDUCE (block centers) and -SAMPLE, since the window decides which
+ * file lines/elements the x/y stand for.  x and y must also be evenly
+ * spaced, as a reader of a regular grid assumes.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class GridMappingTest {
+
+  private static final int LINES = 200;
+  private static final int ELEMS = 300;
+
+  private static final double EARTH_KM = 6371.2d;
+
+  // name, projection, and nav block values: pole (LAMB, PS) or
+  // equator (MERC) line, element of the standard longitude, standard
+  // latitude(s), the second for LAMB only, spacing (m), standard
+  // longitude (west positive), earth radius (m)
+  private static final String [] NAMES = {
+    "lc-north", "lc-south", "merc-north", "merc-south", "ps-north", "ps-south"
+  };
+  private static final String [] PROJECTIONS = {
+    "LAMB", "LAMB", "MERC", "MERC", "PS", "PS"
+  };
+  private static final int [][] WORDS = {
+    {-1200, 150,  250000,  500000,  4000,   950000, 6371200},
+    { 1600, 150, -250000, -500000,  4000, -1350000, 6371200},
+    {  700, 150,  200000,       0, 10000,  1000000, 6371200},
+    { -500, 150,  200000,       0, 10000,  -300000, 6371200},
+    { -600, 150,  600000,       0,  8000,  1050000, 6371200},
+    {  900, 150, -600000,       0,  8000,        0, 6371200}
+  };
+
+  // window line/element ranges, and reduction (line step, element
+  // step, 1 to average)
+  private static final String [] WINDOWS = {
+    "whole", "offset", "reduce", "offset-reduce", "sample"
+  };
+  private static final int [][] WINDOW_SPECS = {
+    {0, LINES - 1, 0, ELEMS - 1, 1, 1, 0},
+    {20, 179, 35, 264, 1, 1, 0},
+    {0, LINES - 1, 0, ELEMS - 1, 3, 2, 1},
+    {13, 190, 41, 287, 4, 3, 1},
+    {7, LINES - 1, 0, ELEMS - 1, 2, 2, 0}
+  };
+
+  /**
+   *
+   * add the cases
+   *
+   * @param t           TestRunner to add to
+   *
+   */
+
+  static void add(TestRunner t)
+
+  {
+    for (int k = 0; k < NAMES.length; k++) {
+      for (int w = 0; w < WINDOWS.length; w++) {
+        final int kk = k;
+        final int ww = w;
+        t.add(new TestRunner.Case("gridmap-" + NAMES[k] + "-" + WINDOWS[w]) {
+          void run() throws Exception {
+            rebuild(kk, ww);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   *
+   * make the navigator for configuration k
+   *
+   */
+
+  static Navigator navigator(int k, AncillaryData ad)
+    throws Exception
+
+  {
+    int [] c = WORDS[k];
+    int [] navBlock = new int[640];
+    navBlock[0] = magic(PROJECTIONS[k]);
+    navBlock[1] = c[0];
+    navBlock[2] = c[1];
+    navBlock[3] = c[2];
+    if (PROJECTIONS[k].equals("LAMB")) {
+      navBlock[4] = c[3];
+      navBlock[5] = c[4];
+      navBlock[6] = c[5];
+      navBlock[7] = c[6];
+      navBlock[11] = (c[2] < 0) ? -900000 : 900000;
+      return new NavigatorLambertConformal(ad, navBlock);
+    }
+    navBlock[4] = c[4];
+    navBlock[5] = c[5];
+    navBlock[6] = c[6];
+    if (PROJECTIONS[k].equals("MERC")) {
+      return new NavigatorMercator(ad, navBlock);
+    }
+    return new NavigatorPolarStereographic(ad, navBlock);
+  }
+
+  /**
+   *
+   * return the nav block word for a projection name
+   *
+   */
+
+  private static int magic(String name)
+
+  {
+    String m = (name + "    ").substring(0, 4);
+    return (m.charAt(0) << 24) | (m.charAt(1) << 16) | (m.charAt(2) << 8) | m.charAt(3);
+  }
+
+  /**
+   *
+   * great circle distance, km
+   *
+   */
+
+  static double distanceKm(double lat1, double lon1, double lat2, double lon2)
+
+  {
+    double p1 = Math.toRadians(lat1);
+    double p2 = Math.toRadians(lat2);
+    double dp = p2 - p1;
+    double dl = Math.toRadians(lon2 - lon1);
+    double a = Math.sin(dp / 2) * Math.sin(dp / 2) +
+      Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+    return 2.0d * EARTH_KM * Math.asin(Math.min(1.0d, Math.sqrt(a)));
+  }
+
+  /**
+   *
+   * make the grid mapping for one configuration and window, and check
+   * every pixel rebuilt from x/y against exact navigation
+   *
+   */
+
+  static void rebuild(int k, int wi)
+    throws Exception
+
+  {
+    AncillaryData ad = TestRunner.directory(LINES, ELEMS, 1, 1, 1, 1);
+    Navigator n = navigator(k, ad);
+    int [] s = WINDOW_SPECS[wi];
+    ImageWindow w = new ImageWindow(ad);
+    w.setLines(s[0], s[1]);
+    w.setElems(s[2], s[3]);
+    w.setReduce(s[4], s[5], s[6] == 1);
+    String at = NAMES[k] + ", " + WINDOWS[wi] + " window";
+
+    GridMapping gm = GridMapping.make(n, w);
+    TestRunner.check(gm != null, at + ": no grid mapping");
+
+    int nl = w.getNumLines();
+    int ne = w.getNumElems();
+    double [] x = gm.getX();
+    double [] y = gm.getY();
+    TestRunner.check(x.length == ne && y.length == nl,
+      at + ": " + x.length + " x and " + y.length + " y for " + ne + " by " + nl);
+    evenlySpaced(x, at + ", x");
+    evenlySpaced(y, at + ", y");
+
+    // exact lats/lons of the window, [line][element]
+    double [][] lats = new double[nl][ne];
+    double [][] lons = new double[nl][ne];
+    double [] lines = new double[ne];
+    double [] elems = new double[ne];
+    for (int e = 0; e < ne; e++) {
+      elems[e] = w.toFileElem(e);
+    }
+    for (int l = 0; l < nl; l++) {
+      for (int e = 0; e < ne; e++) {
+        lines[e] = w.toFileLine(l);
+      }
+      n.toLatLon(lines, elems, 0, ne, lats[l], lons[l]);
+    }
+
+    double [] ll = new double[2];
+    double worst = 0.0d;
+    for (int l = 0; l < nl; l++) {
+      for (int e = 0; e < ne; e++) {
+        // a quarter of the pixel here, the smaller way
+        int l2 = (l + 1 < nl) ? l + 1 : l - 1;
+        int e2 = (e + 1 < ne) ? e + 1 : e - 1;
+        double pixel = Math.min (
+          distanceKm(lats[l][e], lons[l][e], lats[l2][e], lons[l2][e]),
+          distanceKm(lats[l][e], lons[l][e], lats[l][e2], lons[l][e2])
+        );
+
+        gm.inverse(x[e], y[l], ll);
+        double err = distanceKm(lats[l][e], lons[l][e], ll[0], ll[1]);
+        TestRunner.check(err <= 0.25d * pixel,
+          at + ": line " + l + " element " + e + " is " + err +
+          " km from navigation, pixel " + pixel + " km");
+        worst = Math.max(worst, err / pixel);
+      }
+    }
+    TestRunner.check(worst < 0.25d, at + ": worst error " + worst + " pixel");
+  }
+
+  /**
+   *
+   * fail unless the coordinates step evenly, to 1% of a step
+   *
+   */
+
+  static void evenlySpaced(double [] v, String what)
+
+  {
+    if (v.length < 2) {
+      return;
+    }
+    double step = (v[v.length - 1] - v[0]) / (v.length - 1);
+    TestRunner.check(step != 0.0d, what + " doesn't change");
+    for (int i = 1; i < v.length; i++) {
+      TestRunner.near(step, v[i] - v[i - 1], 0.01d * Math.abs(step),
+        what + " step " + i);
+    }
+  }
+
+}
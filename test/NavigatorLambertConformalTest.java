@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * NavigatorLambertConformalTest checks that Lambert conformal
+ * navigators for different sectors can be made and used side by side
+ * on many threads, each giving exactly what it gives alone, and that
+ * their navigation round trips.  The configurations cover both
+ * hemispheres, several standard parallels, spacings, and image
+ * windows (start and resolution).
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class NavigatorLambertConformalTest {
+
+  private static final int LINES = 300;
+  private static final int ELEMS = 400;
+  private static final int THREADS = 8;
+  private static final int REPEATS = 3;
+
+  // name, pole line, pole element, standard parallels, spacing (m),
+  // standard longitude (west positive), pole (DDDMMSS), start line,
+  // start element, resolution
+  private static final String [] NAMES = {
+    "north-25-50", "north-30-60", "north-33-45-east",
+    "south-25-50", "south-20-40", "north-40-60-fine"
+  };
+  private static final int [][] CONFIGS = {
+    {-1200,  200,  250000,  500000,  4000,   950000,  900000,   1,   1, 1},
+    { -300,  600,  300000,  600000, 10000,  1000000,  900000, 101,  51, 2},
+    {-2500, -100,  330000,  450000,  2000, -1200000,       0,   1,   1, 1},
+    { 1600,  200, -250000, -500000,  4000, -1350000, -900000,   1,   1, 1},
+    { 1100,  300, -200000, -400000,  8000,   600000, -900000,  11,  21, 3},
+    {-5000,  150,  400000,  600000,  1000,   800000,  900000,   1,   1, 1}
+  };
+
+  /**
+   *
+   * add the cases
+   *
+   * @param t           TestRunner to add to
+   *
+   */
+
+  static void add(TestRunner t)
+
+  {
+    t.add(new TestRunner.Case("lc-concurrent") {
+      void run() throws Exception {
+        concurrent();
+      }
+    });
+    t.add(new TestRunner.Case("lc-roundtrip") {
+      void run() throws Exception {
+        roundTrip();
+      }
+    });
+    t.add(new TestRunner.Case("lc-hemisphere") {
+      void run() throws Exception {
+        hemisphere();
+      }
+    });
+  }
+
+  /**
+   *
+   * make the navigator for configuration k
+   *
+   */
+
+  static NavigatorLambertConformal navigator(int k)
+    throws Exception
+
+  {
+    int [] c = CONFIGS[k];
+    int [] navBlock = new int[128];
+    navBlock[0] = 0x4c414d42;  // "LAMB"
+    navBlock[1] = c[0];
+    navBlock[2] = c[1];
+    navBlock[3] = c[2];
+    navBlock[4] = c[3];
+    navBlock[5] = c[4];
+    navBlock[6] = c[5];
+    navBlock[7] = 6371200;
+    navBlock[11] = c[6];
+    AncillaryData ad = TestRunner.directory(LINES, ELEMS, c[7], c[8], c[9], c[9]);
+    return new NavigatorLambertConformal(ad, navBlock);
+  }
+
+  /**
+   *
+   * navigate every pixel of the image through the bulk method; lats
+   * in [0], lons in [1]
+   *
+   */
+
+  static float [][] navigateAll(Navigator n)
+
+  {
+    float [][] ll = new float[2][LINES * ELEMS];
+    double [] lines = new double[ELEMS];
+    double [] elems = new double[ELEMS];
+    float [] lats = new float[ELEMS];
+    float [] lons = new float[ELEMS];
+    for (int e = 0; e < ELEMS; e++) {
+      elems[e] = e;
+    }
+    for (int l = 0; l < LINES; l++) {
+      Arrays.fill(lines, l);
+      n.toLatLon(lines, elems, 0, ELEMS, lats, lons);
+      System.arraycopy(lats, 0, ll[0], l * ELEMS, ELEMS);
+      System.arraycopy(lons, 0, ll[1], l * ELEMS, ELEMS);
+    }
+    return ll;
+  }
+
+  /**
+   *
+   * every configuration navigated alone, right after its navigator is
+   * made, then all of them at once on a thread pool, sharing one
+   * navigator per configuration or making new ones as they go; the
+   * results must be bit for bit the same
+   *
+   */
+
+  static void concurrent()
+    throws Exception
+
+  {
+    final int k0 = CONFIGS.length;
+    float [][][] serial = new float[k0][][];
+    for (int k = 0; k < k0; k++) {
+      serial[k] = navigateAll(navigator(k));
+    }
+
+    final NavigatorLambertConformal [] shared = new NavigatorLambertConformal[k0];
+    for (int k = 0; k < k0; k++) {
+      shared[k] = navigator(k);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<float [][]>> results = new ArrayList<Future<float [][]>>();
+      for (int rep = 0; rep < REPEATS; rep++) {
+        for (int k = 0; k < k0; k++) {
+          final int kk = k;
+          final boolean fresh = (rep % 2) == 1;
+          results.add(pool.submit(new Callable<float [][]>() {
+            public float [][] call() throws Exception {
+              return navigateAll(fresh ? navigator(kk) : shared[kk]);
+            }
+          }));
+        }
+      }
+      for (int i = 0; i < results.size(); i++) {
+        float [][] ll = results.get(i).get();
+        int k = i % k0;
+        TestRunner.check(Arrays.equals(ll[0], serial[k][0]) &&
+          Arrays.equals(ll[1], serial[k][1]),
+          NAMES[k] + ": concurrent navigation differs from serial, run " + (i / k0));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   *
+   * lines/elements to lats/lons and back, through the bulk (file
+   * coordinate) and array (area coordinate) methods, which must agree
+   *
+   */
+
+  static void roundTrip()
+    throws Exception
+
+  {
+    int steps = 10;
+    int count = (steps + 1) * (steps + 1);
+    for (int k = 0; k < CONFIGS.length; k++) {
+      NavigatorLambertConformal n = navigator(k);
+      int [] c = CONFIGS[k];
+
+      double [] lines = new double[count];
+      double [] elems = new double[count];
+      double [][] area = new double[2][count];
+      for (int i = 0, p = 0; i <= steps; i++) {
+        for (int j = 0; j <= steps; j++, p++) {
+          lines[p] = i * (LINES - 1) / (double) steps;
+          elems[p] = j * (ELEMS - 1) / (double) steps;
+          area[0][p] = c[7] + lines[p] * c[9];
+          area[1][p] = c[8] + elems[p] * c[9];
+        }
+      }
+
+      double [] lats = new double[count];
+      double [] lons = new double[count];
+      n.toLatLon(lines, elems, 0, count, lats, lons);
+      double [][] latLon = n.toLatLon(area);
+
+      double [] lines2 = new double[count];
+      double [] elems2 = new double[count];
+      n.toLinEle(lats, lons, 0, count, lines2, elems2);
+      double [][] area2 = n.toLinEle(latLon);
+
+      for (int p = 0; p < count; p++) {
+        String at = NAMES[k] + " line " + lines[p] + " element " + elems[p];
+        TestRunner.near(lats[p], latLon[0][p], 1.0e-9d, at + ", array lat");
+        TestRunner.near(lons[p], latLon[1][p], 1.0e-9d, at + ", array lon");
+        TestRunner.near(lines[p], lines2[p], 1.0e-4d, at + ", line round trip");
+        TestRunner.near(elems[p], elems2[p], 1.0e-4d, at + ", element round trip");
+        TestRunner.near(area[0][p], area2[0][p], 1.0e-4d, at + ", area line round trip");
+        TestRunner.near(area[1][p], area2[1][p], 1.0e-4d, at + ", area element round trip");
+      }
+    }
+  }
+
+  /**
+   *
+   * each navigator stays in its own hemisphere and reports its own
+   * standard parallels
+   *
+   */
+
+  static void hemisphere()
+    throws Exception
+
+  {
+    for (int k = 0; k < CONFIGS.length; k++) {
+      NavigatorLambertConformal n = navigator(k);
+      int [] c = CONFIGS[k];
+      double [] lats = new double[1];
+      double [] lons = new double[1];
+      n.toLatLon(new double[] {LINES / 2}, new double[] {ELEMS / 2}, 0, 1, lats, lons);
+      TestRunner.check((c[2] > 0) == (lats[0] > 0.0d),
+        NAMES[k] + ": image center at latitude " + lats[0]);
+
+      double [] sp = n.getStandardParallels();
+      TestRunner.near(c[2] / 10000.0d, sp[0], 1.0e-4d, NAMES[k] + ", first parallel");
+      TestRunner.near(c[3] / 10000.0d, sp[1], 1.0e-4d, NAMES[k] + ", second parallel");
+    }
+  }
+
+}
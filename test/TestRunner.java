@@ -0,0 +1,184 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import edu.wisc.ssec.mcidas.AncillaryData;
+
+/**
+ * TestRunner runs the converter's tests: navigator re-entrancy
+ * (NavigatorLambertConformalTest) and the CF grid mapping
+ * (GridMappingTest).
+ *
+ * Each case either returns or throws; a case that throws fails, and
+ * any failure makes the exit status 1, so build.bat can stop before
+ * the JAR is made.  Like the benchmarks, this is a small harness of
+ * its own, since the converter's classes are in the default package.
+ *
+ *   java TestRunner [-ONLY<name>]
+ *
+ * -ONLY runs the cases whose name starts with <name>.
+ *
+ * @version 1.0 18 Oct 2026
+ */
+
+class TestRunner {
+
+  private String only = null;
+  private List<Case> cases = new ArrayList<Case>();
+
+  /**
+   *
+   * Case is one test
+   *
+   */
+
+  abstract static class Case {
+
+    String name;
+
+    Case(String Name)
+
+    {
+      name = Name;
+    }
+
+    abstract void run() throws Exception;
+
+  }
+
+  /**
+   *
+   * add a case, unless -ONLY leaves it out
+   *
+   */
+
+  public void add(Case c)
+
+  {
+    if (only == null || c.name.startsWith(only)) {
+      cases.add(c);
+    }
+  }
+
+  /**
+   *
+   * fail the running case unless a condition holds
+   *
+   * @param ok          condition
+   * @param what        what went wrong, if it doesn't
+   *
+   */
+
+  static void check(boolean ok, String what)
+
+  {
+    if (!ok) {
+      throw new AssertionError(what);
+    }
+  }
+
+  /**
+   *
+   * fail the running case if a value is further than tol from the
+   * expected one
+   *
+   */
+
+  static void near(double expected, double actual, double tol, String what)
+
+  {
+    check(Math.abs(expected - actual) <= tol,
+      what + ": expected " + expected + ", got " + actual + " (tolerance " + tol + ")");
+  }
+
+  /**
+   *
+   * make an area directory for a one band, 2 byte image
+   *
+   * @param Lines       number of lines
+   * @param Elems       number of elements
+   * @param StartLine   area line of the first line
+   * @param StartElem   area element of the first element
+   * @param LineRes     area lines per image line
+   * @param ElemRes     area elements per image element
+   *
+   */
+
+  static AncillaryData directory (
+    int Lines,
+    int Elems,
+    int StartLine,
+    int StartElem,
+    int LineRes,
+    int ElemRes
+  )
+    throws IOException
+
+  {
+    int [] dir = new int[64];
+    dir[1] = 4;
+    dir[5] = StartLine;
+    dir[6] = StartElem;
+    dir[8] = Lines;
+    dir[9] = Elems;
+    dir[10] = 2;
+    dir[11] = LineRes;
+    dir[12] = ElemRes;
+    dir[13] = 1;
+    dir[18] = 1;
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (int i = 0; i < dir.length; i++) {
+      out.writeInt(dir[i]);
+    }
+    out.close();
+    return new AncillaryData(
+      new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  /**
+   *
+   * run the tests
+   *
+   */
+
+  public static void main(String [] args)
+    throws Exception
+
+  {
+    TestRunner t = new TestRunner();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].indexOf("-ONLY") >= 0) {
+        t.only = args[i].substring(5);
+      }
+    }
+
+    NavigatorLambertConformalTest.add(t);
+    GridMappingTest.add(t);
+
+    int failed = 0;
+    for (int i = 0; i < t.cases.size(); i++) {
+      Case c = t.cases.get(i);
+      try {
+        c.run();
+        System.out.println("ok      " + c.name);
+      } catch (Throwable e) {
+        failed++;
+        System.out.println("FAILED  " + c.name + ": " + e);
+        if (!(e instanceof AssertionError)) {
+          e.printStackTrace(System.out);
+        }
+      }
+    }
+
+    System.out.println(t.cases.size() + " tests, " + failed + " failed");
+    if (failed > 0) {
+      System.exit(1);
+    }
+  }
+
+}